@@ -6,16 +6,25 @@ import com.github.tornaia.jimglabel.common.util.UIUtils;
 import com.github.tornaia.jimglabel.gui.component.AutoCompleteComboBox;
 import com.github.tornaia.jimglabel.gui.component.EditableImagePanel;
 import com.github.tornaia.jimglabel.gui.component.AutoCompleteItem;
+import com.github.tornaia.jimglabel.gui.component.AutoCompleteItems;
+import com.github.tornaia.jimglabel.gui.component.DetectedObjectsPanel;
 import com.github.tornaia.jimglabel.gui.domain.DetectedObject;
 import com.github.tornaia.jimglabel.gui.domain.EditableImage;
+import com.github.tornaia.jimglabel.gui.domain.ObjectClass;
 import com.github.tornaia.jimglabel.gui.event.DetectedObjectSelectedEvent;
 import com.github.tornaia.jimglabel.gui.event.DetectedObjectsUpdatedEvent;
 import com.github.tornaia.jimglabel.gui.event.EditableImageEventPublisher;
 import com.github.tornaia.jimglabel.gui.event.EditableImageUpdatedEvent;
+import com.github.tornaia.jimglabel.gui.event.PreLabellingProgressEvent;
+import com.github.tornaia.jimglabel.gui.service.DetectionService;
 import com.github.tornaia.jimglabel.gui.service.ImageEditorService;
+import com.github.tornaia.jimglabel.gui.service.IndexedImages;
 import com.github.tornaia.jimglabel.gui.service.OptimizeService;
+import com.github.tornaia.jimglabel.gui.service.PreLabellingService;
 import com.github.tornaia.jimglabel.gui.util.FileUtil;
 import com.github.tornaia.jimglabel.tf.TFService;
+import com.github.tornaia.jimglabel.tf.TFServiceState;
+import com.github.tornaia.jimglabel.tf.TFServiceStateChangedEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
@@ -23,18 +32,12 @@ import org.springframework.stereotype.Component;
 import javax.swing.*;
 import javax.swing.filechooser.FileSystemView;
 import java.awt.*;
-import java.awt.event.FocusEvent;
-import java.awt.event.FocusListener;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
 @Component
 public class AppFrame {
@@ -42,12 +45,15 @@ public class AppFrame {
     private final ImageEditorService imageEditorService;
     private final OptimizeService optimizeService;
     private final TFService tfService;
+    private final DetectionService detectionService;
+    private final PreLabellingService preLabellingService;
 
     private EditableImage editableImage;
     private DetectedObject selectedObject;
 
     private final ApplicationEventPublisher applicationEventPublisher;
     private final ApplicationSettings applicationSettings;
+    private final UIUtils uiUtils;
     private final EditableImageEventPublisher editableImageEventPublisher;
 
     private final JFrame jFrame;
@@ -63,16 +69,22 @@ public class AppFrame {
     private JLabel sizeValue;
     private JButton deleteImageButton;
     private JToggleButton analyzeImageButton;
-    private JScrollPane objectsScrollPanel;
+    private DetectedObjectsPanel detectedObjectsPanel;
+    private JMenuItem startPreLabellingMenuItem;
+    private JMenuItem pausePreLabellingMenuItem;
 
-    private List<AutoCompleteComboBox> autoCompleteComboBoxes;
+    private List<ObjectClass> autoCompleteClasses;
+    private AutoCompleteItems autoCompleteItems;
 
     @Autowired
-    public AppFrame(ImageEditorService imageEditorService, OptimizeService optimizeService, TFService tfService, ApplicationSettings applicationSettings, UIUtils uiUtils, EditableImageEventPublisher editableImageEventPublisher, ApplicationEventPublisher applicationEventPublisher) {
+    public AppFrame(ImageEditorService imageEditorService, OptimizeService optimizeService, TFService tfService, DetectionService detectionService, PreLabellingService preLabellingService, ApplicationSettings applicationSettings, UIUtils uiUtils, EditableImageEventPublisher editableImageEventPublisher, ApplicationEventPublisher applicationEventPublisher) {
         this.imageEditorService = imageEditorService;
         this.optimizeService = optimizeService;
         this.tfService = tfService;
+        this.detectionService = detectionService;
+        this.preLabellingService = preLabellingService;
         this.applicationSettings = applicationSettings;
+        this.uiUtils = uiUtils;
         this.editableImageEventPublisher = editableImageEventPublisher;
         this.applicationEventPublisher = applicationEventPublisher;
         this.jFrame = new JFrame(String.format("%s (%s)", applicationSettings.getDesktopClientName(), applicationSettings.getInstallerVersion()));
@@ -133,6 +145,22 @@ public class AppFrame {
         menuItem.addActionListener(e -> applicationEventPublisher.exit());
         menu.add(menuItem);
 
+        // Tools
+        menu = new JMenu("Tools");
+        menu.setMnemonic(KeyEvent.VK_T);
+        menuBar.add(menu);
+
+        // Tools > Pre-label images
+        startPreLabellingMenuItem = new JMenuItem("Pre-label images", KeyEvent.VK_P);
+        startPreLabellingMenuItem.addActionListener(e -> preLabellingService.start());
+        menu.add(startPreLabellingMenuItem);
+
+        // Tools > Pause pre-labelling
+        pausePreLabellingMenuItem = new JMenuItem("Pause pre-labelling", KeyEvent.VK_U);
+        pausePreLabellingMenuItem.addActionListener(e -> togglePreLabellingPause());
+        pausePreLabellingMenuItem.setEnabled(false);
+        menu.add(pausePreLabellingMenuItem);
+
         // About
         menu = new JMenu("About");
         menu.setMnemonic(KeyEvent.VK_A);
@@ -141,6 +169,14 @@ public class AppFrame {
         return menuBar;
     }
 
+    private void togglePreLabellingPause() {
+        if (preLabellingService.isPaused()) {
+            preLabellingService.resume();
+        } else {
+            preLabellingService.pause();
+        }
+    }
+
     private void selectSourceDirectory() {
         String directory = imageEditorService.getSourceDirectory();
         File fileChooserDirectory = directory != null && Files.isDirectory(Path.of(directory)) ? new File(directory) : FileSystemView.getFileSystemView().getHomeDirectory();
@@ -230,7 +266,8 @@ public class AppFrame {
 
 
         // objects
-        objectsScrollPanel = new JScrollPane(new JPanel());
+        detectedObjectsPanel = new DetectedObjectsPanel(editableImageEventPublisher, imageEditorService);
+        JScrollPane objectsScrollPanel = new JScrollPane(detectedObjectsPanel);
         objectsScrollPanel.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
         objectsScrollPanel.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
 
@@ -326,11 +363,10 @@ public class AppFrame {
 
         Path currentImage = editableImage.getFile();
         String currentImageFileName = currentImage.getFileName().toString();
-        BufferedImage bufferedImage = editableImage.getBufferedImage();
         byte[] content = editableImage.getContent();
 
         String sourceDirectory = imageEditorService.getSourceDirectory();
-        List<Path> sourceImages = imageEditorService.getSourceImageFiles();
+        IndexedImages sourceImages = imageEditorService.getIndexedImages();
         sourceValue.setText(sourceDirectory != null ? sourceDirectory + " (" + sourceImages.size() + ")" : "<Select directory: ALT+S>");
         String workspaceDirectory = imageEditorService.getWorkspaceDirectory();
         workspaceValue.setText(workspaceDirectory != null ? workspaceDirectory : "<Select directory: ALT+W>");
@@ -338,32 +374,70 @@ public class AppFrame {
         jFrame.setTitle(String.format("%s (%s/%s) - %s (%s)", currentImageFileName, sourceImages.indexOf(currentImage) + 1, sourceImages.size(), applicationSettings.getDesktopClientName(), applicationSettings.getInstallerVersion()));
 
         boolean analyzeImage = analyzeImageButton.isSelected();
-        editableImagePanel = new EditableImagePanel(editableImageEventPublisher, editableImage, tfService, analyzeImage);
+        if (editableImagePanel != null) {
+            editableImagePanel.dispose();
+        }
+        editableImagePanel = new EditableImagePanel(editableImageEventPublisher, editableImage, detectionService, analyzeImage);
+        // the scroll pane pans the zoomed image, the panel is centered while it is smaller than the viewport
+        JPanel centeringPanel = new JPanel(new GridBagLayout());
+        centeringPanel.setBackground(Color.BLACK);
+        centeringPanel.add(editableImagePanel);
+        JScrollPane imageScrollPane = new JScrollPane(centeringPanel);
+        imageScrollPane.setBorder(BorderFactory.createEmptyBorder());
+        imageScrollPane.getViewport().setBackground(Color.BLACK);
+        imageScrollPane.getHorizontalScrollBar().setUnitIncrement(16);
+        imageScrollPane.getVerticalScrollBar().setUnitIncrement(16);
         imagePanel.removeAll();
-        imagePanel.add(editableImagePanel);
+        imagePanel.add(imageScrollPane, new GridBagConstraints(0, 0, 1, 1, 1.0D, 1.0D, GridBagConstraints.CENTER, GridBagConstraints.BOTH, new Insets(0, 0, 0, 0), 0, 0));
         imagePanel.revalidate();
         imagePanel.repaint();
         editableImagePanel.repaint();
 
         fileValue.setText(currentImageFileName);
-        resolutionValue.setText(String.format("%s x %s", bufferedImage.getWidth(), bufferedImage.getHeight()));
+        resolutionValue.setText(String.format("%s x %s", editableImage.getWidth(), editableImage.getHeight()));
         sizeValue.setText(FileUtil.readableFileSize(content.length));
         deleteImageButton.setEnabled(true);
-        analyzeImageButton.setEnabled(true);
+        updateAnalyzeImageButton();
         validateSourceButton.setEnabled(true);
         generateImagesButton.setEnabled(true);
 
         updateObjectsPanel();
     }
 
+    @EventListener(TFServiceStateChangedEvent.class)
+    public void onTFServiceStateChangedEvent() {
+        uiUtils.invokeLater("TFServiceStateChanged", this::updateAnalyzeImageButton);
+    }
+
+    private void updateAnalyzeImageButton() {
+        TFServiceState tfServiceState = tfService.getState();
+        analyzeImageButton.setEnabled(editableImage != null && tfServiceState != TFServiceState.FAILED);
+        if (tfServiceState == TFServiceState.LOADING) {
+            analyzeImageButton.setToolTipText("Model is loading, analysis starts once it is ready");
+        } else if (tfServiceState == TFServiceState.FAILED) {
+            analyzeImageButton.setToolTipText("Failed to load model");
+        } else {
+            analyzeImageButton.setToolTipText("Analyze image");
+        }
+    }
+
+    @EventListener(PreLabellingProgressEvent.class)
+    public void onPreLabellingProgressEvent(PreLabellingProgressEvent event) {
+        uiUtils.invokeLater("PreLabellingProgress", () -> {
+            String progress = String.format("%s/%s", event.getProcessed(), event.getTotal());
+            startPreLabellingMenuItem.setEnabled(!event.isRunning());
+            startPreLabellingMenuItem.setText(event.isRunning() ? "Pre-labelling " + progress : "Pre-label images");
+            pausePreLabellingMenuItem.setEnabled(event.isRunning());
+            pausePreLabellingMenuItem.setText(event.isPaused() ? "Resume pre-labelling" : "Pause pre-labelling");
+        });
+    }
+
     @EventListener(DetectedObjectSelectedEvent.class)
     public void onDetectedObjectSelectedEvent(DetectedObjectSelectedEvent event) {
         selectedObject = event.getDetectedObject();
         if (selectedObject != null) {
-            List<DetectedObject> detectedObjects = editableImage.getDetectedObjects();
-            int itemIndex = detectedObjects.indexOf(selectedObject);
-            AutoCompleteComboBox autoCompleteComboBox = autoCompleteComboBoxes.get(itemIndex);
-            if (!autoCompleteComboBox.getEditor().getEditorComponent().hasFocus()) {
+            AutoCompleteComboBox autoCompleteComboBox = detectedObjectsPanel.getComboBox(selectedObject);
+            if (autoCompleteComboBox != null && !autoCompleteComboBox.getEditor().getEditorComponent().hasFocus()) {
                 autoCompleteComboBox.requestFocus();
             }
         }
@@ -377,84 +451,17 @@ public class AppFrame {
     }
 
     private void updateObjectsPanel() {
-        List<AutoCompleteItem> autoCompleteItems = imageEditorService
-                .getClasses()
-                .stream()
-                .map(e -> new AutoCompleteItem(e.getId(), e.getCardId() + " " + e.getName()))
-                .collect(Collectors.toList());
-
-        autoCompleteComboBoxes = new ArrayList<>();
-        List<DetectedObject> detectedObjects = editableImage.getDetectedObjects();
-
-        JPanel nestedObjectsPanel = new JPanel();
-        nestedObjectsPanel.setLayout(new BoxLayout(nestedObjectsPanel, BoxLayout.Y_AXIS));
-        AutoCompleteComboBox objectClassComboBox = null;
-        for (int i = 0; i < detectedObjects.size(); i++) {
-            DetectedObject detectedObject = detectedObjects.get(i);
-
-            JPanel objectPanel = new JPanel(new GridBagLayout());
-
-            JLabel indexLabel = new JLabel("" + (i + 1));
-            objectPanel.add(indexLabel, new GridBagConstraints(0, 0, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 0, 0, 0), 0, 0));
-
-            objectClassComboBox = new AutoCompleteComboBox(autoCompleteItems.toArray(new AutoCompleteItem[0]));
-            objectClassComboBox.getEditor().getEditorComponent().addFocusListener(new FocusListener() {
-                @Override
-                public void focusGained(FocusEvent e) {
-                    editableImageEventPublisher.selectDetectedObject(detectedObject);
-                }
-
-                @Override
-                public void focusLost(FocusEvent e) {
-                    editableImageEventPublisher.selectDetectedObject(null);
-                }
-            });
-
-            autoCompleteComboBoxes.add(objectClassComboBox);
-            objectClassComboBox.addActionListener(e -> {
-                JComboBox<?> source = (JComboBox<?>) e.getSource();
-                AutoCompleteItem selectedItem = (AutoCompleteItem) source.getSelectedItem();
-                selectedItem = autoCompleteItems.contains(selectedItem) ? selectedItem : null;
-                boolean changed = !Objects.equals(selectedItem != null ? selectedItem.getId() : null, detectedObject.getId());
-                if (changed) {
-                    imageEditorService.updateDetectedObjectName(detectedObject, selectedItem != null ? selectedItem.getId() : null);
-                }
-            });
-
-            int selectedIndex = autoCompleteItems.stream().map(AutoCompleteItem::getId).collect(Collectors.toList()).indexOf(detectedObject.getId());
-            objectClassComboBox.setSelectedIndex(selectedIndex);
-            objectPanel.add(objectClassComboBox, new GridBagConstraints(1, 0, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 16, 0, 0), 0, 0));
-
-            // area
-            BufferedImage bufferedImage = editableImage.getBufferedImage();
-            double imageArea = bufferedImage.getWidth() * bufferedImage.getHeight();
-            double objectArea = ((detectedObject.getRight() - detectedObject.getLeft()) * bufferedImage.getWidth()) * ((detectedObject.getBottom() - detectedObject.getTop()) * bufferedImage.getHeight());
-            double areaPercentage = (objectArea / imageArea) * 100D;
-            objectPanel.add(new JLabel("Area"), new GridBagConstraints(0, 2, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 0, 0, 0), 0, 0));
-            objectPanel.add(new JLabel(String.format("%.2f%%", areaPercentage)), new GridBagConstraints(1, 2, 1, 1, 1.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 4, 0, 0), 0, 0));
-
-            // position
-            objectPanel.add(new JLabel("Position"), new GridBagConstraints(0, 3, 2, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 0, 0, 0), 0, 0));
-            objectPanel.add(new JLabel("top"), new GridBagConstraints(0, 4, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 24, 0, 0), 0, 0));
-            objectPanel.add(new JLabel(String.format("%.2f%%", detectedObject.getTop() * 100)), new GridBagConstraints(1, 4, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 24, 0, 0), 0, 0));
-            objectPanel.add(new JLabel("right"), new GridBagConstraints(0, 5, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 24, 0, 0), 0, 0));
-            objectPanel.add(new JLabel(String.format("%.2f%%", detectedObject.getRight() * 100)), new GridBagConstraints(1, 5, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 24, 0, 0), 0, 0));
-            objectPanel.add(new JLabel("bottom"), new GridBagConstraints(0, 6, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 24, 0, 0), 0, 0));
-            objectPanel.add(new JLabel(String.format("%.2f%%", detectedObject.getBottom() * 100)), new GridBagConstraints(1, 6, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 24, 0, 0), 0, 0));
-            objectPanel.add(new JLabel("left"), new GridBagConstraints(0, 7, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 24, 0, 0), 0, 0));
-            objectPanel.add(new JLabel(String.format("%.2f%%", detectedObject.getLeft() * 100)), new GridBagConstraints(1, 7, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 24, 0, 0), 0, 0));
-
-            nestedObjectsPanel.add(objectPanel);
+        List<ObjectClass> classes = imageEditorService.getClasses();
+        // the catalog returns the same list until classes.json changes
+        if (classes != autoCompleteClasses) {
+            autoCompleteClasses = classes;
+            autoCompleteItems = new AutoCompleteItems(classes
+                    .stream()
+                    .map(e -> new AutoCompleteItem(e.getId(), e.getCardId() + " " + e.getName()))
+                    .toArray(AutoCompleteItem[]::new));
         }
 
-        JPanel objectsPanel = new JPanel(new GridBagLayout());
-        objectsPanel.add(nestedObjectsPanel, new GridBagConstraints(0, 0, 1, 1, 1.0D, 1.0D, GridBagConstraints.PAGE_START, GridBagConstraints.HORIZONTAL, new Insets(0, 0, 0, 0), 0, 0));
-
-        objectsScrollPanel.setViewportView(objectsPanel);
-
-        if (objectClassComboBox != null) {
-            objectClassComboBox.requestFocusInWindow();
-        }
+        detectedObjectsPanel.update(editableImage, autoCompleteItems);
     }
 
     private void bringFrameToFront() {
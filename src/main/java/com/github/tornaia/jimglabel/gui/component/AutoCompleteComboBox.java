@@ -21,7 +21,6 @@ public class AutoCompleteComboBox extends JComboBox<AutoCompleteItem> {
     private JTextField textField;
 
     public AutoCompleteComboBox(AutoCompleteItem[] items) {
-        super(items);
         this.items = items;
         this.model = new AutoCompleteComboboxModel(items);
         setModel(model);
@@ -51,6 +50,17 @@ public class AutoCompleteComboBox extends JComboBox<AutoCompleteItem> {
         setEditable(true);
     }
 
+    /**
+     * Selects the item at the index of all the items, not only of the ones matching the text typed so far.
+     */
+    public void selectItem(int index) {
+        if (model.getSize() != items.length) {
+            model.removeAllElements();
+            model.addAll(Arrays.asList(items));
+        }
+        setSelectedIndex(index);
+    }
+
     @Override
     public void setSelectedIndex(int index) {
         super.setSelectedIndex(index);
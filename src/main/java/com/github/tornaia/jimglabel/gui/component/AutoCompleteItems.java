@@ -0,0 +1,38 @@
+package com.github.tornaia.jimglabel.gui.component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Items shared by every combo box of the objects, with their positions by id.
+ */
+public final class AutoCompleteItems {
+
+    private final AutoCompleteItem[] items;
+    private final Map<Integer, Integer> indexesById = new HashMap<>();
+
+    public AutoCompleteItems(AutoCompleteItem[] items) {
+        this.items = items;
+        for (int i = 0; i < items.length; i++) {
+            indexesById.putIfAbsent(items[i].getId(), i);
+        }
+    }
+
+    /**
+     * Not copied, must not be modified.
+     */
+    public AutoCompleteItem[] getItems() {
+        return items;
+    }
+
+    /**
+     * @return -1 if there is no item with the id
+     */
+    public int indexOf(Integer id) {
+        return id != null ? indexesById.getOrDefault(id, -1) : -1;
+    }
+
+    public boolean contains(AutoCompleteItem item) {
+        return item != null && indexOf(item.getId()) != -1;
+    }
+}
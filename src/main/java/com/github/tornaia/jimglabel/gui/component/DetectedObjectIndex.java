@@ -0,0 +1,139 @@
+package com.github.tornaia.jimglabel.gui.component;
+
+import com.github.tornaia.jimglabel.gui.domain.DetectedObject;
+import com.github.tornaia.jimglabel.gui.util.DetectedObjectUtil;
+import com.github.tornaia.jimglabel.gui.util.ObjectControl;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Uniform grid over the view, every cell lists the objects whose rectangle or controls reach into it, so hit tests
+ * look at the few objects near the mouse only. The screen rectangles are computed once, an index is built for a
+ * snapshot of the objects and a view size and has to be rebuilt when either of them changes.
+ */
+public class DetectedObjectIndex {
+
+    private static final int MIN_CELL_SIZE = 64;
+    private static final int MAX_CELLS_PER_SIDE = 128;
+
+    private final List<DetectedObject> objects;
+    private final Dimension viewSize;
+    private final Map<DetectedObject, Integer> positions = new IdentityHashMap<>();
+    private final float[] x0;
+    private final float[] y0;
+    private final float[] x1;
+    private final float[] y1;
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[][] cells;
+
+    public DetectedObjectIndex(List<DetectedObject> objects, Dimension viewSize) {
+        this.objects = new ArrayList<>(objects);
+        this.viewSize = new Dimension(viewSize);
+        int size = this.objects.size();
+        this.x0 = new float[size];
+        this.y0 = new float[size];
+        this.x1 = new float[size];
+        this.y1 = new float[size];
+        for (int i = 0; i < size; i++) {
+            DetectedObject object = this.objects.get(i);
+            positions.put(object, i);
+            x0[i] = viewSize.width * object.getLeft();
+            y0[i] = viewSize.height * object.getTop();
+            x1[i] = viewSize.width * object.getRight();
+            y1[i] = viewSize.height * object.getBottom();
+        }
+
+        this.cellSize = Math.max(MIN_CELL_SIZE, (Math.max(viewSize.width, viewSize.height) + MAX_CELLS_PER_SIDE - 1) / MAX_CELLS_PER_SIDE);
+        this.columns = Math.max(1, (viewSize.width + cellSize - 1) / cellSize);
+        this.rows = Math.max(1, (viewSize.height + cellSize - 1) / cellSize);
+        this.cells = new int[columns * rows][];
+
+        // counted first, the cells are exactly sized arrays of object positions in list order
+        int[] counts = new int[cells.length];
+        for (int i = 0; i < size; i++) {
+            forEachCell(i, cell -> counts[cell]++);
+        }
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = new int[counts[cell]];
+            counts[cell] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            int position = i;
+            forEachCell(i, cell -> cells[cell][counts[cell]++] = position);
+        }
+    }
+
+    /**
+     * @return false if the objects or the view size changed since the index was built
+     */
+    public boolean isUpToDate(List<DetectedObject> objects, Dimension viewSize) {
+        return this.viewSize.equals(viewSize) && this.objects.equals(objects);
+    }
+
+    /**
+     * @return the first object that contains the point, null if there is none
+     */
+    public DetectedObject getObject(Point point) {
+        for (int i : getCell(point)) {
+            if (point.x > x0[i] && point.x < x1[i] && point.y > y0[i] && point.y < y1[i]) {
+                return objects.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the last object with a control at the point, null if there is none
+     */
+    public DetectedObject getObjectAtControl(Point point) {
+        int[] cell = getCell(point);
+        for (int j = cell.length - 1; j >= 0; j--) {
+            int i = cell[j];
+            if (getObjectControl(i, point.x, point.y) != null) {
+                return objects.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the control of the object at the point, null if the object is not indexed or has no control there
+     */
+    public ObjectControl getObjectControl(DetectedObject object, Point point) {
+        Integer position = object != null ? positions.get(object) : null;
+        return position != null ? getObjectControl(position, point.x, point.y) : null;
+    }
+
+    private ObjectControl getObjectControl(int i, float px, float py) {
+        return DetectedObjectUtil.getObjectControl(x0[i], y0[i], x1[i], y1[i], px, py);
+    }
+
+    private int[] getCell(Point point) {
+        int column = Math.max(0, Math.min(columns - 1, Math.floorDiv(point.x, cellSize)));
+        int row = Math.max(0, Math.min(rows - 1, Math.floorDiv(point.y, cellSize)));
+        return cells[row * columns + column];
+    }
+
+    /**
+     * The cells of the rectangle grown by the control radius, points outside of the view fall into the border cells.
+     */
+    private void forEachCell(int i, IntConsumer cellConsumer) {
+        int radius = DetectedObjectUtil.CONTROL_SIZE_RADIUS2;
+        int fromColumn = Math.max(0, Math.min(columns - 1, (int) Math.floor((x0[i] - radius) / cellSize)));
+        int toColumn = Math.max(0, Math.min(columns - 1, (int) Math.floor((x1[i] + radius) / cellSize)));
+        int fromRow = Math.max(0, Math.min(rows - 1, (int) Math.floor((y0[i] - radius) / cellSize)));
+        int toRow = Math.max(0, Math.min(rows - 1, (int) Math.floor((y1[i] + radius) / cellSize)));
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int column = fromColumn; column <= toColumn; column++) {
+                cellConsumer.accept(row * columns + column);
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.tornaia.jimglabel.gui.component;
+
+import com.github.tornaia.jimglabel.gui.domain.DetectedObject;
+import com.github.tornaia.jimglabel.gui.domain.EditableImage;
+import com.github.tornaia.jimglabel.gui.event.EditableImageEventPublisher;
+import com.github.tornaia.jimglabel.gui.service.ImageEditorService;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.FocusEvent;
+import java.awt.event.FocusListener;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * One row per object of the image: the class and the area and position of the object. An update compares the objects
+ * with the rows, creates rows for the new objects, removes the rows of the removed ones and refreshes only the labels
+ * whose values changed. Every row is rebuilt only when the image or the classes change.
+ */
+public class DetectedObjectsPanel extends JPanel {
+
+    private static final long serialVersionUID = -3581954206874317352L;
+
+    private final EditableImageEventPublisher editableImageEventPublisher;
+    private final ImageEditorService imageEditorService;
+    private final JPanel rowsPanel = new JPanel();
+    private final Map<DetectedObject, ObjectRow> rows = new IdentityHashMap<>();
+
+    private EditableImage editableImage;
+    private AutoCompleteItems autoCompleteItems;
+
+    public DetectedObjectsPanel(EditableImageEventPublisher editableImageEventPublisher, ImageEditorService imageEditorService) {
+        super(new GridBagLayout());
+        this.editableImageEventPublisher = editableImageEventPublisher;
+        this.imageEditorService = imageEditorService;
+        rowsPanel.setLayout(new BoxLayout(rowsPanel, BoxLayout.Y_AXIS));
+        add(rowsPanel, new GridBagConstraints(0, 0, 1, 1, 1.0D, 1.0D, GridBagConstraints.PAGE_START, GridBagConstraints.HORIZONTAL, new Insets(0, 0, 0, 0), 0, 0));
+    }
+
+    public void update(EditableImage editableImage, AutoCompleteItems autoCompleteItems) {
+        if (editableImage != this.editableImage || autoCompleteItems != this.autoCompleteItems) {
+            this.editableImage = editableImage;
+            this.autoCompleteItems = autoCompleteItems;
+            rows.clear();
+            rowsPanel.removeAll();
+        }
+
+        List<DetectedObject> detectedObjects = editableImage.getDetectedObjects();
+        Set<DetectedObject> objects = Collections.newSetFromMap(new IdentityHashMap<>());
+        objects.addAll(detectedObjects);
+        boolean changed = rows.keySet().retainAll(objects);
+        ObjectRow lastRow = null;
+        for (int i = 0; i < detectedObjects.size(); i++) {
+            DetectedObject detectedObject = detectedObjects.get(i);
+            ObjectRow row = rows.get(detectedObject);
+            if (row == null) {
+                row = new ObjectRow(detectedObject);
+                rows.put(detectedObject, row);
+            }
+            row.update(i);
+
+            if (i >= rowsPanel.getComponentCount() || rowsPanel.getComponent(i) != row.panel) {
+                rowsPanel.add(row.panel, i);
+                changed = true;
+            }
+            lastRow = row;
+        }
+        while (rowsPanel.getComponentCount() > detectedObjects.size()) {
+            rowsPanel.remove(rowsPanel.getComponentCount() - 1);
+            changed = true;
+        }
+
+        if (changed) {
+            rowsPanel.revalidate();
+            rowsPanel.repaint();
+        }
+
+        if (lastRow != null) {
+            lastRow.comboBox.requestFocusInWindow();
+        }
+    }
+
+    /**
+     * @return null if the object has no row
+     */
+    public AutoCompleteComboBox getComboBox(DetectedObject detectedObject) {
+        ObjectRow row = rows.get(detectedObject);
+        return row != null ? row.comboBox : null;
+    }
+
+    private class ObjectRow {
+
+        private final DetectedObject detectedObject;
+        private final JPanel panel = new JPanel(new GridBagLayout());
+        private final JLabel indexLabel = new JLabel();
+        private final AutoCompleteComboBox comboBox;
+        private final JLabel areaValue = new JLabel();
+        private final JLabel topValue = new JLabel();
+        private final JLabel rightValue = new JLabel();
+        private final JLabel bottomValue = new JLabel();
+        private final JLabel leftValue = new JLabel();
+
+        private int index = -1;
+        private Integer id;
+        private float top = Float.NaN;
+        private float right = Float.NaN;
+        private float bottom = Float.NaN;
+        private float left = Float.NaN;
+
+        private ObjectRow(DetectedObject detectedObject) {
+            this.detectedObject = detectedObject;
+
+            panel.add(indexLabel, new GridBagConstraints(0, 0, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 0, 0, 0), 0, 0));
+
+            comboBox = new AutoCompleteComboBox(autoCompleteItems.getItems());
+            comboBox.getEditor().getEditorComponent().addFocusListener(new FocusListener() {
+                @Override
+                public void focusGained(FocusEvent e) {
+                    editableImageEventPublisher.selectDetectedObject(detectedObject);
+                }
+
+                @Override
+                public void focusLost(FocusEvent e) {
+                    editableImageEventPublisher.selectDetectedObject(null);
+                }
+            });
+            comboBox.addActionListener(e -> {
+                AutoCompleteItem selectedItem = (AutoCompleteItem) comboBox.getSelectedItem();
+                selectedItem = autoCompleteItems.contains(selectedItem) ? selectedItem : null;
+                Integer selectedId = selectedItem != null ? selectedItem.getId() : null;
+                boolean changed = !Objects.equals(selectedId, detectedObject.getId());
+                if (changed) {
+                    imageEditorService.updateDetectedObjectName(detectedObject, selectedId);
+                }
+                id = selectedId;
+            });
+            panel.add(comboBox, new GridBagConstraints(1, 0, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 16, 0, 0), 0, 0));
+
+            // area
+            panel.add(new JLabel("Area"), new GridBagConstraints(0, 2, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 0, 0, 0), 0, 0));
+            panel.add(areaValue, new GridBagConstraints(1, 2, 1, 1, 1.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 4, 0, 0), 0, 0));
+
+            // position
+            panel.add(new JLabel("Position"), new GridBagConstraints(0, 3, 2, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 0, 0, 0), 0, 0));
+            panel.add(new JLabel("top"), new GridBagConstraints(0, 4, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 24, 0, 0), 0, 0));
+            panel.add(topValue, new GridBagConstraints(1, 4, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 24, 0, 0), 0, 0));
+            panel.add(new JLabel("right"), new GridBagConstraints(0, 5, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 24, 0, 0), 0, 0));
+            panel.add(rightValue, new GridBagConstraints(1, 5, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 24, 0, 0), 0, 0));
+            panel.add(new JLabel("bottom"), new GridBagConstraints(0, 6, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 24, 0, 0), 0, 0));
+            panel.add(bottomValue, new GridBagConstraints(1, 6, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 24, 0, 0), 0, 0));
+            panel.add(new JLabel("left"), new GridBagConstraints(0, 7, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 24, 0, 0), 0, 0));
+            panel.add(leftValue, new GridBagConstraints(1, 7, 1, 1, 0.0D, 0.0D, GridBagConstraints.LINE_START, GridBagConstraints.HORIZONTAL, new Insets(4, 24, 0, 0), 0, 0));
+        }
+
+        private void update(int index) {
+            boolean created = this.index == -1;
+            if (this.index != index) {
+                this.index = index;
+                indexLabel.setText("" + (index + 1));
+            }
+
+            if (created || !Objects.equals(id, detectedObject.getId())) {
+                id = detectedObject.getId();
+                comboBox.selectItem(autoCompleteItems.indexOf(id));
+            }
+
+            if (top != detectedObject.getTop() || right != detectedObject.getRight() || bottom != detectedObject.getBottom() || left != detectedObject.getLeft()) {
+                top = detectedObject.getTop();
+                right = detectedObject.getRight();
+                bottom = detectedObject.getBottom();
+                left = detectedObject.getLeft();
+
+                double imageArea = editableImage.getWidth() * editableImage.getHeight();
+                double objectArea = ((right - left) * editableImage.getWidth()) * ((bottom - top) * editableImage.getHeight());
+                double areaPercentage = (objectArea / imageArea) * 100D;
+                areaValue.setText(String.format("%.2f%%", areaPercentage));
+                topValue.setText(String.format("%.2f%%", top * 100));
+                rightValue.setText(String.format("%.2f%%", right * 100));
+                bottomValue.setText(String.format("%.2f%%", bottom * 100));
+                leftValue.setText(String.format("%.2f%%", left * 100));
+            }
+        }
+    }
+}
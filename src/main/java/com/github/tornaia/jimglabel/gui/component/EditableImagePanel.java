@@ -4,10 +4,10 @@ import com.github.tornaia.jimglabel.gui.domain.DetectedObject;
 import com.github.tornaia.jimglabel.gui.domain.EditableImage;
 import com.github.tornaia.jimglabel.gui.event.DetectedObjectSelectedEvent;
 import com.github.tornaia.jimglabel.gui.event.EditableImageEventPublisher;
+import com.github.tornaia.jimglabel.gui.service.DetectionService;
 import com.github.tornaia.jimglabel.gui.util.DetectedObjectUtil;
 import com.github.tornaia.jimglabel.gui.util.ObjectControl;
 import com.github.tornaia.jimglabel.tf.Detection;
-import com.github.tornaia.jimglabel.tf.TFService;
 import com.github.tornaia.jimglabel.tf.TFServiceDefaultImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,60 +16,80 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.HierarchyBoundsAdapter;
 import java.awt.event.HierarchyEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
 import java.awt.image.BufferedImage;
-import java.awt.image.ColorModel;
-import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The image, the tensor flow detections and the objects are painted into a background layer of the visible area,
+ * which is redrawn only when one of them changes. The crosshair, the rectangle being drawn, the object under the
+ * mouse and the selected object with its controls are painted over it, mouse moves repaint only the areas of the
+ * overlay that changed.
+ */
 public class EditableImagePanel extends JPanel {
 
     private static final Logger LOG = LoggerFactory.getLogger(EditableImagePanel.class);
 
-    private static final float MIN_SCORE = 0.50F;
+    private static final double ZOOM_STEP = 1.25D;
+    private static final double MAX_MAGNIFICATION = 4D;
+    private static final int OVERLAY_MARGIN = 3;
 
     private final EditableImage editableImage;
+    private final ScaledImageRenderer scaledImageRenderer;
+    private final TilePyramid tilePyramid;
 
     private DetectedObject selectedObject;
+    private DetectedObject hoveredObject;
 
     private Point drawFrom;
     private Point drawTo;
     private Point mousePressedPoint;
     private Point currentPoint;
 
-    private Image scaledImage;
+    private Dimension viewSize;
+    private double zoom = 1D;
+    private Point panFrom;
+
+    private BufferedImage backgroundLayer;
+    private boolean backgroundLayerValid;
+    private Rectangle backgroundArea;
+    private Dimension backgroundViewSize;
+    private List<DetectedObject> backgroundObjects;
+    private int backgroundDetectionCount;
 
     private ObjectControl selectedObjectControl;
 
-    public EditableImagePanel(EditableImageEventPublisher editableImageEventPublisher, EditableImage editableImage, TFService tfService, boolean analyzeImage) {
+    private CompletableFuture<List<Detection>> tensorFlowDetectionsFuture;
+
+    private DetectedObjectIndex objectIndex;
+
+    public EditableImagePanel(EditableImageEventPublisher editableImageEventPublisher, EditableImage editableImage, DetectionService detectionService, boolean analyzeImage) {
         this.editableImage = editableImage;
+        this.scaledImageRenderer = new ScaledImageRenderer(editableImage.getDisplayImage(), this, this::invalidateBackgroundLayer);
+        this.tilePyramid = new TilePyramid(editableImage.getContent(), editableImage.getWidth(), editableImage.getHeight(), this::invalidateBackgroundLayer);
 
         if (analyzeImage) {
             if (editableImage.getTensorFlowDetections().isEmpty()) {
-                BufferedImage clonedBufferedImage = deepCopy(editableImage.getBufferedImage());
-                new Thread(() -> {
-                    List<Detection> tensorFlowDetections = tfService.detect(clonedBufferedImage);
-                    List<Detection> filteredTensorFlowDetections = tensorFlowDetections
-                            .stream()
-                            .filter(e -> e.getScore() > MIN_SCORE)
-                            .collect(Collectors.toList());
-                    if (filteredTensorFlowDetections.isEmpty()) {
-                        Detection notGoodEnoughButStillTheBest = tensorFlowDetections.get(0);
-                        if (notGoodEnoughButStillTheBest.getScore() > 0.02F) {
-                            filteredTensorFlowDetections.add(notGoodEnoughButStillTheBest);
+                CompletableFuture<List<Detection>> tensorFlowDetectionsFuture = detectionService.detect(editableImage);
+                tensorFlowDetectionsFuture.whenComplete((tensorFlowDetections, throwable) -> {
+                    if (throwable != null) {
+                        if (!tensorFlowDetectionsFuture.isCancelled()) {
+                            LOG.error("Failed to analyze image", throwable);
                         }
+                        return;
                     }
-                    editableImage.getTensorFlowDetections().addAll(filteredTensorFlowDetections);
-                    LOG.info("Found {} candidates", filteredTensorFlowDetections.size());
-                    for (Detection filteredTensorFlowDetection : filteredTensorFlowDetections) {
-                        LOG.info("\t\t{}", filteredTensorFlowDetection);
-                    }
-                    repaint();
-                }).start();
+                    SwingUtilities.invokeLater(() -> addTensorFlowDetections(tensorFlowDetections));
+                });
+                this.tensorFlowDetectionsFuture = tensorFlowDetectionsFuture;
             }
         }
 
@@ -79,61 +99,51 @@ public class EditableImagePanel extends JPanel {
         addMouseMotionListener(new MouseMotionAdapter() {
             @Override
             public void mouseDragged(MouseEvent e) {
-                currentPoint = e.getPoint();
+                if (panFrom != null) {
+                    Point panTo = e.getLocationOnScreen();
+                    JViewport viewport = getViewport();
+                    Point viewPosition = viewport.getViewPosition();
+                    scrollTo(viewport, viewPosition.x - (panTo.x - panFrom.x), viewPosition.y - (panTo.y - panFrom.y));
+                    panFrom = panTo;
+                    return;
+                }
+
+                List<Rectangle> previousOverlayAreas = getOverlayAreas();
+                int cx = e.getX();
+                int cy = e.getY();
+                currentPoint = moveTo(currentPoint, cx, cy);
+                hoveredObject = getObject(currentPoint).orElse(null);
 
                 if (selectedObjectControl != null) {
                     detectedObjects.remove(selectedObject);
+                    float top = viewSize.height * selectedObject.getTop();
+                    float right = viewSize.width * selectedObject.getRight();
+                    float bottom = viewSize.height * selectedObject.getBottom();
+                    float left = viewSize.width * selectedObject.getLeft();
+                    int px = mousePressedPoint.x;
+                    int py = mousePressedPoint.y;
                     if (selectedObjectControl == ObjectControl.TOP_LEFT ||
                             selectedObjectControl == ObjectControl.TOP_RIGHT ||
                             selectedObjectControl == ObjectControl.BOTTOM_LEFT ||
                             selectedObjectControl == ObjectControl.BOTTOM_RIGHT) {
-                        float top = scaledImage.getHeight(null) * selectedObject.getTop();
-                        float right = scaledImage.getWidth(null) * selectedObject.getRight();
-                        float bottom = scaledImage.getHeight(null) * selectedObject.getBottom();
-                        float left = scaledImage.getWidth(null) * selectedObject.getLeft();
-                        int px = mousePressedPoint.x;
-                        int py = mousePressedPoint.y;
                         float fartherX = Math.abs(px - left) < Math.abs(px - right) ? right : left;
                         float fartherY = Math.abs(py - top) < Math.abs(py - bottom) ? bottom : top;
-                        drawFrom = new Point((int) fartherX, (int) fartherY);
-                        drawTo = currentPoint;
-                        repaint();
+                        drawFrom = moveTo(drawFrom, (int) fartherX, (int) fartherY);
+                        drawTo = moveTo(drawTo, cx, cy);
                     } else if (selectedObjectControl == ObjectControl.TOP) {
-                        float top = scaledImage.getHeight(null) * selectedObject.getTop();
-                        float right = scaledImage.getWidth(null) * selectedObject.getRight();
-                        float bottom = scaledImage.getHeight(null) * selectedObject.getBottom();
-                        float left = scaledImage.getWidth(null) * selectedObject.getLeft();
-                        int px = mousePressedPoint.x;
-                        int py = mousePressedPoint.y;
-                        drawFrom = new Point((int) left, (int) bottom);
-                        drawTo = new Point((int) right, e.getY());
-                        repaint();
+                        drawFrom = moveTo(drawFrom, (int) left, (int) bottom);
+                        drawTo = moveTo(drawTo, (int) right, cy);
                     } else if (selectedObjectControl == ObjectControl.LEFT) {
-                        float top = scaledImage.getHeight(null) * selectedObject.getTop();
-                        float right = scaledImage.getWidth(null) * selectedObject.getRight();
-                        float bottom = scaledImage.getHeight(null) * selectedObject.getBottom();
-                        float left = scaledImage.getWidth(null) * selectedObject.getLeft();
-                        int px = mousePressedPoint.x;
-                        int py = mousePressedPoint.y;
-                        drawFrom = new Point((int) right, (int) bottom);
-                        drawTo = new Point(e.getX(), (int) top);
-                        repaint();
+                        drawFrom = moveTo(drawFrom, (int) right, (int) bottom);
+                        drawTo = moveTo(drawTo, cx, (int) top);
                     } else if (selectedObjectControl == ObjectControl.MOVE) {
-                        float top = scaledImage.getHeight(null) * selectedObject.getTop();
-                        float right = scaledImage.getWidth(null) * selectedObject.getRight();
-                        float bottom = scaledImage.getHeight(null) * selectedObject.getBottom();
-                        float left = scaledImage.getWidth(null) * selectedObject.getLeft();
-                        int px = mousePressedPoint.x;
-                        int py = mousePressedPoint.y;
-                        int cx = e.getX();
-                        int cy = e.getY();
                         top = top - (py - cy);
                         right = right - (px - cx);
                         bottom = bottom - (py - cy);
                         left = left - (px - cx);
 
-                        int scaledImageWidth = scaledImage.getWidth(null);
-                        int scaledImageHeight = scaledImage.getHeight(null);
+                        int viewWidth = viewSize.width;
+                        int viewHeight = viewSize.height;
                         if (left < 0) {
                             right += -left;
                             left = 0;
@@ -142,92 +152,58 @@ public class EditableImagePanel extends JPanel {
                             bottom += -top;
                             top = 0;
                         }
-                        if (right > scaledImageWidth - 1) {
-                            left -= right - scaledImageWidth - 1;
-                            right = scaledImageWidth - 1;
+                        if (right > viewWidth - 1) {
+                            left -= right - viewWidth - 1;
+                            right = viewWidth - 1;
                         }
-                        if (bottom > scaledImageHeight) {
-                            top -= bottom - scaledImageHeight;
-                            bottom = scaledImageHeight;
+                        if (bottom > viewHeight) {
+                            top -= bottom - viewHeight;
+                            bottom = viewHeight;
                         }
 
-                        drawFrom = new Point((int) left, (int) top);
-                        drawTo = new Point((int) right, (int) bottom);
-                        repaint();
+                        drawFrom = moveTo(drawFrom, (int) left, (int) top);
+                        drawTo = moveTo(drawTo, (int) right, (int) bottom);
                     } else if (selectedObjectControl == ObjectControl.RIGHT) {
-                        float top = scaledImage.getHeight(null) * selectedObject.getTop();
-                        float right = scaledImage.getWidth(null) * selectedObject.getRight();
-                        float bottom = scaledImage.getHeight(null) * selectedObject.getBottom();
-                        float left = scaledImage.getWidth(null) * selectedObject.getLeft();
-                        int px = mousePressedPoint.x;
-                        int py = mousePressedPoint.y;
-                        drawFrom = new Point((int) left, (int) bottom);
-                        drawTo = new Point(e.getX(), (int) top);
-                        repaint();
+                        drawFrom = moveTo(drawFrom, (int) left, (int) bottom);
+                        drawTo = moveTo(drawTo, cx, (int) top);
                     } else if (selectedObjectControl == ObjectControl.BOTTOM) {
-                        float top = scaledImage.getHeight(null) * selectedObject.getTop();
-                        float right = scaledImage.getWidth(null) * selectedObject.getRight();
-                        float bottom = scaledImage.getHeight(null) * selectedObject.getBottom();
-                        float left = scaledImage.getWidth(null) * selectedObject.getLeft();
-                        int px = mousePressedPoint.x;
-                        int py = mousePressedPoint.y;
-                        drawFrom = new Point((int) left, e.getY());
-                        drawTo = new Point((int) right, (int) top);
-                        repaint();
+                        drawFrom = moveTo(drawFrom, (int) left, cy);
+                        drawTo = moveTo(drawTo, (int) right, (int) top);
                     }
                 } else {
-                    drawTo = e.getPoint();
-                    repaint();
+                    drawTo = moveTo(drawTo, cx, cy);
                 }
+                repaintOverlay(previousOverlayAreas);
             }
 
             @Override
             public void mouseMoved(MouseEvent e) {
                 Point point = e.getPoint();
 
-                DetectedObject objectAtPoint = getObjectAtPoint(scaledImage, point);
+                DetectedObject objectAtPoint = getObjectAtPoint(point);
+                DetectedObject object = getObject(point).orElse(null);
 
                 if (objectAtPoint != null) {
-                    boolean objectAtPointIsTheSelectedObject = objectAtPoint.equals(selectedObject);
-                    if (objectAtPointIsTheSelectedObject && DetectedObjectUtil.isTopLeftControl(scaledImage, objectAtPoint, point)) {
-                        setCursor(Cursor.getPredefinedCursor(Cursor.NW_RESIZE_CURSOR));
-                    } else if (objectAtPointIsTheSelectedObject && DetectedObjectUtil.isTopControl(scaledImage, objectAtPoint, point)) {
-                        setCursor(Cursor.getPredefinedCursor(Cursor.N_RESIZE_CURSOR));
-                    } else if (objectAtPointIsTheSelectedObject && DetectedObjectUtil.isTopRightControl(scaledImage, objectAtPoint, point)) {
-                        setCursor(Cursor.getPredefinedCursor(Cursor.NE_RESIZE_CURSOR));
-                    } else if (objectAtPointIsTheSelectedObject && DetectedObjectUtil.isLeftControl(scaledImage, objectAtPoint, point)) {
-                        setCursor(Cursor.getPredefinedCursor(Cursor.W_RESIZE_CURSOR));
-                    } else if (objectAtPointIsTheSelectedObject && DetectedObjectUtil.isMoveControl(scaledImage, objectAtPoint, point)) {
-                        setCursor(Cursor.getPredefinedCursor(Cursor.MOVE_CURSOR));
-                    } else if (objectAtPointIsTheSelectedObject && DetectedObjectUtil.isRightControl(scaledImage, objectAtPoint, point)) {
-                        setCursor(Cursor.getPredefinedCursor(Cursor.E_RESIZE_CURSOR));
-                    } else if (objectAtPointIsTheSelectedObject && DetectedObjectUtil.isBottomLeftControl(scaledImage, objectAtPoint, point)) {
-                        setCursor(Cursor.getPredefinedCursor(Cursor.SW_RESIZE_CURSOR));
-                    } else if (objectAtPointIsTheSelectedObject && DetectedObjectUtil.isBottomControl(scaledImage, objectAtPoint, point)) {
-                        setCursor(Cursor.getPredefinedCursor(Cursor.S_RESIZE_CURSOR));
-                    } else if (objectAtPointIsTheSelectedObject && DetectedObjectUtil.isBottomRightControl(scaledImage, objectAtPoint, point)) {
-                        setCursor(Cursor.getPredefinedCursor(Cursor.SE_RESIZE_CURSOR));
-                    } else if (objectAtPointIsTheSelectedObject) {
-                        setCursor(Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR));
+                    if (objectAtPoint.equals(selectedObject)) {
+                        setCursor(getControlCursor(getObjectIndex().getObjectControl(objectAtPoint, point)));
                     }
+                } else if (object != null) {
+                    setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
                 } else {
-                    Optional<DetectedObject> optionalDetectedObject = getObject(scaledImage, point);
-                    if (optionalDetectedObject.isPresent()) {
-                        setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-                    } else {
-                        setCursor(Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR));
-                    }
+                    setCursor(Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR));
                 }
 
+                List<Rectangle> previousOverlayAreas = getOverlayAreas();
                 currentPoint = point;
-                repaint();
+                hoveredObject = object;
+                repaintOverlay(previousOverlayAreas);
             }
         });
         addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
                 Point point = e.getPoint();
-                Optional<DetectedObject> optionalDetectedObject = getObject(scaledImage, point);
+                Optional<DetectedObject> optionalDetectedObject = getObject(point);
                 if (optionalDetectedObject.isPresent()) {
                     DetectedObject selectedObject = optionalDetectedObject.get();
                     editableImageEventPublisher.selectDetectedObject(selectedObject);
@@ -236,11 +212,16 @@ public class EditableImagePanel extends JPanel {
 
             @Override
             public void mousePressed(MouseEvent e) {
+                if (SwingUtilities.isMiddleMouseButton(e) && getViewport() != null) {
+                    panFrom = e.getLocationOnScreen();
+                    return;
+                }
+
                 Point point = e.getPoint();
 
-                DetectedObject selectedObject = getObjectAtPoint(scaledImage, point);
+                DetectedObject selectedObject = getObjectAtPoint(point);
                 editableImageEventPublisher.selectDetectedObject(selectedObject);
-                selectedObjectControl = DetectedObjectUtil.getSelectedObjectControl(scaledImage, selectedObject, point);
+                selectedObjectControl = getObjectIndex().getObjectControl(selectedObject, point);
                 mousePressedPoint = point;
 
                 if (selectedObject == null) {
@@ -252,15 +233,20 @@ public class EditableImagePanel extends JPanel {
 
             @Override
             public void mouseReleased(MouseEvent e) {
+                if (panFrom != null) {
+                    panFrom = null;
+                    return;
+                }
+
                 boolean clickedAndNotDragged = drawFrom != null && drawTo == null;
                 if (clickedAndNotDragged) {
                     drawFrom = null;
                     return;
                 }
 
-                int scaledImageWidth = scaledImage.getWidth(null);
-                int scaledImageHeight = scaledImage.getHeight(null);
-                Point c = new Point(Math.min(scaledImageWidth, Math.max(0, e.getX())), Math.min(scaledImageHeight, Math.max(0, e.getY())));
+                int viewWidth = viewSize.width;
+                int viewHeight = viewSize.height;
+                Point c = new Point(Math.min(viewWidth, Math.max(0, e.getX())), Math.min(viewHeight, Math.max(0, e.getY())));
                 Integer id = selectedObject != null ? selectedObject.getId() : null;
 
                 if (selectedObjectControl == null ||
@@ -277,10 +263,10 @@ public class EditableImagePanel extends JPanel {
                         int y = Math.min(fromY, toY);
                         int width = Math.abs(toX - fromX);
                         int height = Math.abs(toY - fromY);
-                        float top = (float) y / scaledImageHeight;
-                        float right = (float) (x + width) / scaledImageWidth;
-                        float bottom = (float) (y + height) / scaledImageHeight;
-                        float left = (float) x / scaledImageWidth;
+                        float top = (float) y / viewHeight;
+                        float right = (float) (x + width) / viewWidth;
+                        float bottom = (float) (y + height) / viewHeight;
+                        float left = (float) x / viewWidth;
                         detectedObjects.add(new DetectedObject(id, top, right, bottom, left));
                         editableImageEventPublisher.updateDetectedObjects();
 
@@ -294,10 +280,10 @@ public class EditableImagePanel extends JPanel {
                         int fromY = drawFrom.y;
                         int toX = drawTo.x;
                         int toY = drawTo.y;
-                        float top = (float) fromY / scaledImageHeight;
-                        float right = (float) toX / scaledImageWidth;
-                        float bottom = (float) toY / scaledImageHeight;
-                        float left = (float) fromX / scaledImageWidth;
+                        float top = (float) fromY / viewHeight;
+                        float right = (float) toX / viewWidth;
+                        float bottom = (float) toY / viewHeight;
+                        float left = (float) fromX / viewWidth;
                         detectedObjects.add(new DetectedObject(id, top, right, bottom, left));
                         editableImageEventPublisher.updateDetectedObjects();
 
@@ -307,9 +293,9 @@ public class EditableImagePanel extends JPanel {
                     }
                 } else if (selectedObjectControl == ObjectControl.TOP) {
                     if (drawFrom != null) {
-                        float originalBottom = (scaledImage.getHeight(null) * selectedObject.getBottom());
-                        float top = (c.y < originalBottom) ? (float) c.y / scaledImage.getHeight(null) : originalBottom / scaledImage.getHeight(null);
-                        float bottom = (c.y < originalBottom) ? originalBottom / scaledImage.getHeight(null) : (float) c.y / scaledImage.getHeight(null);
+                        float originalBottom = (viewSize.height * selectedObject.getBottom());
+                        float top = (c.y < originalBottom) ? (float) c.y / viewSize.height : originalBottom / viewSize.height;
+                        float bottom = (c.y < originalBottom) ? originalBottom / viewSize.height : (float) c.y / viewSize.height;
                         detectedObjects.add(new DetectedObject(id, top, selectedObject.getRight(), bottom, selectedObject.getLeft()));
                         editableImageEventPublisher.updateDetectedObjects();
 
@@ -319,9 +305,9 @@ public class EditableImagePanel extends JPanel {
                     }
                 } else if (selectedObjectControl == ObjectControl.LEFT) {
                     if (drawFrom != null) {
-                        float originalRight = (scaledImage.getWidth(null) * selectedObject.getRight());
-                        float left = (c.x < originalRight) ? (float) c.x / scaledImage.getWidth(null) : originalRight / scaledImage.getWidth(null);
-                        float right = (c.x < originalRight) ? originalRight / scaledImage.getWidth(null) : (float) c.x / scaledImage.getWidth(null);
+                        float originalRight = (viewSize.width * selectedObject.getRight());
+                        float left = (c.x < originalRight) ? (float) c.x / viewSize.width : originalRight / viewSize.width;
+                        float right = (c.x < originalRight) ? originalRight / viewSize.width : (float) c.x / viewSize.width;
                         detectedObjects.add(new DetectedObject(id, selectedObject.getTop(), right, selectedObject.getBottom(), left));
                         editableImageEventPublisher.updateDetectedObjects();
 
@@ -331,9 +317,9 @@ public class EditableImagePanel extends JPanel {
                     }
                 } else if (selectedObjectControl == ObjectControl.RIGHT) {
                     if (drawFrom != null) {
-                        float originalLeft = (scaledImage.getWidth(null) * selectedObject.getLeft());
-                        float left = (c.x < originalLeft) ? (float) c.x / scaledImage.getWidth(null) : originalLeft / scaledImage.getWidth(null);
-                        float right = (c.x < originalLeft) ? originalLeft / scaledImage.getWidth(null) : (float) c.x / scaledImage.getWidth(null);
+                        float originalLeft = (viewSize.width * selectedObject.getLeft());
+                        float left = (c.x < originalLeft) ? (float) c.x / viewSize.width : originalLeft / viewSize.width;
+                        float right = (c.x < originalLeft) ? originalLeft / viewSize.width : (float) c.x / viewSize.width;
                         detectedObjects.add(new DetectedObject(id, selectedObject.getTop(), right, selectedObject.getBottom(), left));
                         editableImageEventPublisher.updateDetectedObjects();
 
@@ -343,9 +329,9 @@ public class EditableImagePanel extends JPanel {
                     }
                 } else if (selectedObjectControl == ObjectControl.BOTTOM) {
                     if (drawFrom != null) {
-                        float originalTop = (scaledImage.getHeight(null) * selectedObject.getTop());
-                        float top = (c.y < originalTop) ? (float) c.y / scaledImage.getHeight(null) : originalTop / scaledImage.getHeight(null);
-                        float bottom = (c.y < originalTop) ? originalTop / scaledImage.getHeight(null) : (float) c.y / scaledImage.getHeight(null);
+                        float originalTop = (viewSize.height * selectedObject.getTop());
+                        float top = (c.y < originalTop) ? (float) c.y / viewSize.height : originalTop / viewSize.height;
+                        float bottom = (c.y < originalTop) ? originalTop / viewSize.height : (float) c.y / viewSize.height;
                         detectedObjects.add(new DetectedObject(id, top, selectedObject.getRight(), bottom, selectedObject.getLeft()));
                         editableImageEventPublisher.updateDetectedObjects();
 
@@ -364,10 +350,21 @@ public class EditableImagePanel extends JPanel {
 
             @Override
             public void mouseExited(MouseEvent mouseEvent) {
+                List<Rectangle> previousOverlayAreas = getOverlayAreas();
                 currentPoint = null;
-                EditableImagePanel.this.repaint();
+                hoveredObject = null;
+                repaintOverlay(previousOverlayAreas);
+            }
+        });
+        addMouseWheelListener(e -> {
+            if (!e.isControlDown()) {
+                // scrolling is left to the scroll pane
+                getParent().dispatchEvent(SwingUtilities.convertMouseEvent(this, e, getParent()));
+                return;
             }
+            zoomAt(e.getPoint(), Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()));
         });
+        registerKeyboardAction(e -> resetZoom(), KeyStroke.getKeyStroke(KeyEvent.VK_0, InputEvent.CTRL_DOWN_MASK), JComponent.WHEN_IN_FOCUSED_WINDOW);
         addHierarchyBoundsListener(new HierarchyBoundsAdapter() {
             @Override
             public void ancestorResized(HierarchyEvent e) {
@@ -376,39 +373,84 @@ public class EditableImagePanel extends JPanel {
         });
     }
 
+    public void dispose() {
+        cancelImageAnalysis();
+        scaledImageRenderer.dispose();
+        tilePyramid.dispose();
+        backgroundLayer = null;
+    }
+
+    public void cancelImageAnalysis() {
+        if (tensorFlowDetectionsFuture != null) {
+            tensorFlowDetectionsFuture.cancel(false);
+        }
+    }
+
+    private void addTensorFlowDetections(List<Detection> tensorFlowDetections) {
+        editableImage.getTensorFlowDetections().addAll(tensorFlowDetections);
+        LOG.info("Found {} candidates", tensorFlowDetections.size());
+        for (Detection tensorFlowDetection : tensorFlowDetections) {
+            LOG.info("\t\t{}", tensorFlowDetection);
+        }
+        repaint();
+    }
+
     // FIXME this should be removed somehow
     public void onDetectedObjectSelectedEvent(DetectedObjectSelectedEvent event) {
+        List<Rectangle> previousOverlayAreas = getOverlayAreas();
         selectedObject = event.getDetectedObject();
-        repaint();
+        repaintOverlay(previousOverlayAreas);
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
 
+        updateViewSize();
+        Rectangle visibleArea = getVisibleRect();
+        if (visibleArea.isEmpty()) {
+            return;
+        }
+        if (!isBackgroundLayerValid(visibleArea)) {
+            paintBackgroundLayer(visibleArea);
+        }
+        g.drawImage(backgroundLayer, visibleArea.x, visibleArea.y, null);
+        paintOverlay((Graphics2D) g);
+    }
+
+    private void paintBackgroundLayer(Rectangle visibleArea) {
+        if (backgroundLayer == null || backgroundLayer.getWidth() != visibleArea.width || backgroundLayer.getHeight() != visibleArea.height) {
+            backgroundLayer = createCompatibleImage(visibleArea.width, visibleArea.height);
+        }
+        Graphics2D g = backgroundLayer.createGraphics();
+        g.setColor(getBackground());
+        g.fillRect(0, 0, visibleArea.width, visibleArea.height);
+        g.translate(-visibleArea.x, -visibleArea.y);
+        g.clip(visibleArea);
+
         // image
-        int parentPanelWidth = (int) getParent().getSize().getWidth();
-        int parentPanelHeight = (int) getParent().getSize().getHeight();
-        BufferedImage bufferedImage = editableImage.getBufferedImage();
-        double scale = Math.max(1, Math.max((double) bufferedImage.getWidth() / parentPanelWidth, (double) bufferedImage.getHeight() / parentPanelHeight));
-        int targetWidth = (int) (bufferedImage.getWidth() / scale);
-        int targetHeight = (int) (bufferedImage.getHeight() / scale);
-        if (this.scaledImage == null || this.scaledImage.getWidth(null) != targetWidth || this.scaledImage.getHeight(null) != targetHeight) {
-            this.scaledImage = bufferedImage.getScaledInstance(targetWidth, targetHeight, Image.SCALE_SMOOTH);
-            this.setPreferredSize(new Dimension(targetWidth, targetHeight));
-            this.setMinimumSize(new Dimension(targetWidth, targetHeight));
-            revalidate();
+        int targetWidth = viewSize.width;
+        int targetHeight = viewSize.height;
+        BufferedImage displayImage = editableImage.getDisplayImage();
+        if (targetWidth <= displayImage.getWidth()) {
+            scaledImageRenderer.paint(g, targetWidth, targetHeight);
+        } else {
+            // zoomed in beyond the display image, it is stretched until the tiles of the visible area are decoded
+            Rectangle imageArea = visibleArea.intersection(new Rectangle(viewSize));
+            Graphics2D imageGraphics = (Graphics2D) g.create();
+            imageGraphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            imageGraphics.clip(imageArea);
+            imageGraphics.drawImage(displayImage, 0, 0, targetWidth, targetHeight, null);
+            tilePyramid.paint(imageGraphics, imageArea, viewSize);
+            imageGraphics.dispose();
         }
-        g.drawImage(scaledImage, 0, 0, null);
 
 
         // tensor flow rectangles
         List<Detection> tensorFlowDetections = editableImage.getTensorFlowDetections();
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
         tensorFlowDetections.forEach(e -> {
-            Graphics2D g2d = (Graphics2D) g;
-            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-
             float top = e.getTop();
             float right = e.getRight();
             float bottom = e.getBottom();
@@ -417,163 +459,293 @@ public class EditableImagePanel extends JPanel {
             int y = (int) (targetHeight * top);
             int width = (int) (targetWidth * (right - left));
             int height = (int) (targetHeight * (bottom - top));
-            g2d.setStroke(new BasicStroke(3, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{9}, 0));
-            g2d.setPaint(Color.RED);
+            g.setStroke(new BasicStroke(3, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{9}, 0));
             g.setColor(Color.RED);
             g.drawRect(x, y, width, height);
 
-            g2d.setFont(new Font("Serif", Font.BOLD, 18));
-            FontMetrics fm = g2d.getFontMetrics();
+            g.setFont(new Font("Serif", Font.BOLD, 18));
+            FontMetrics fm = g.getFontMetrics();
 
             String cardId = e.getCardId();
             String name = e.getName();
             float score = e.getScore();
             String label = String.format("%s %s %.4f", cardId, name, score);
-            g2d.drawString(label, x + 4, Math.max(fm.getHeight(), y + fm.getHeight()));
+            g.drawString(label, x + 4, Math.max(fm.getHeight(), y + fm.getHeight()));
         });
 
 
-        Graphics2D g2 = (Graphics2D) g;
-        g2.setStroke(new BasicStroke(2));
+        // object rectangles, the overlay highlights the selected one and the one under the mouse
+        g.setStroke(new BasicStroke(2));
+        g.setColor(new Color(205, 92, 92));
+        List<DetectedObject> detectedObjects = editableImage.getDetectedObjects();
+        detectedObjects.forEach(e -> g.draw(getViewRectangle(e)));
+        g.dispose();
+
+        backgroundLayerValid = true;
+        backgroundArea = visibleArea;
+        backgroundViewSize = viewSize;
+        backgroundObjects = new ArrayList<>(detectedObjects);
+        backgroundDetectionCount = tensorFlowDetections.size();
+    }
+
+    private void paintOverlay(Graphics2D g) {
+        g.setStroke(new BasicStroke(2));
 
-        // object rectangles
         List<DetectedObject> detectedObjects = editableImage.getDetectedObjects();
-        detectedObjects.forEach(e -> {
-            float top = e.getTop();
-            float right = e.getRight();
-            float bottom = e.getBottom();
-            float left = e.getLeft();
-            int x = (int) (targetWidth * left);
-            int y = (int) (targetHeight * top);
-            int width = (int) (targetWidth * (right - left));
-            int height = (int) (targetHeight * (bottom - top));
-            boolean currentObjectIsSelected = e == selectedObject;
-            boolean currentObjectIsUnderMouse = currentPoint != null && e.equals(getObject(scaledImage, currentPoint).orElse(null));
-            Color color = currentObjectIsSelected ? new Color(255, 8, 0) : currentObjectIsUnderMouse ? new Color(255, 64, 56) : new Color(205, 92, 92);
-            g.setColor(color);
-            g.drawRect(x, y, width, height);
+        if (hoveredObject != null && hoveredObject != selectedObject && detectedObjects.contains(hoveredObject)) {
+            g.setColor(new Color(255, 64, 56));
+            g.draw(getViewRectangle(hoveredObject));
+        }
 
-            if (currentObjectIsSelected) {
-                // draw controls for corners and edges: top-left, top, top-right, left, right, bottom-left, bottom, bottom-right
-                int controlEdgeSize = DetectedObjectUtil.CONTROL_SIZE_RADIUS * 2 + 1;
-                // top-left
-                {
-                    int cx = Math.max(0, x - controlEdgeSize / 2);
-                    int cy = Math.max(0, y - controlEdgeSize / 2);
-                    int cw = Math.min(controlEdgeSize, targetWidth - cx);
-                    int ch = Math.min(controlEdgeSize, targetHeight - cy);
-                    g.drawRect(cx, cy, cw, ch);
-                }
-                // top
-                {
-                    int cx = Math.max(0, x + width / 2 - controlEdgeSize / 2);
-                    int cy = Math.max(0, y - controlEdgeSize / 2);
-                    int cw = Math.min(controlEdgeSize, targetWidth - cx);
-                    int ch = Math.min(controlEdgeSize, targetHeight - cy);
-                    g.drawRect(cx, cy, cw, ch);
-                }
-                // top-right
-                {
-                    int cx = Math.max(0, x + width - controlEdgeSize / 2);
-                    int cy = Math.max(0, y - controlEdgeSize / 2);
-                    int cw = Math.min(controlEdgeSize, targetWidth - cx);
-                    int ch = Math.min(controlEdgeSize, targetHeight - cy);
-                    g.drawRect(cx, cy, cw, ch);
-                }
-                // left
-                {
-                    int cx = Math.max(0, x - controlEdgeSize / 2);
-                    int cy = Math.max(0, y + height / 2 - controlEdgeSize / 2);
-                    int cw = Math.min(controlEdgeSize, targetWidth - cx);
-                    int ch = Math.min(controlEdgeSize, targetHeight - cy);
-                    g.drawRect(cx, cy, cw, ch);
-                }
-                // center
-                {
-                    int cx = Math.max(0, x + width / 2 - controlEdgeSize / 2);
-                    int cy = Math.max(0, y + height / 2 - controlEdgeSize / 2);
-                    int cw = Math.min(controlEdgeSize, targetWidth - cx);
-                    int ch = Math.min(controlEdgeSize, targetHeight - cy);
-                    g.drawRect(cx, cy, cw, ch);
-                }
-                // right
-                {
-                    int cx = Math.max(0, x + width - controlEdgeSize / 2);
-                    int cy = Math.max(0, y + height / 2 - controlEdgeSize / 2);
-                    int cw = Math.min(controlEdgeSize, targetWidth - cx);
-                    int ch = Math.min(controlEdgeSize, targetHeight - cy);
-                    g.drawRect(cx, cy, cw, ch);
-                }
-                // bottom-left
-                {
-                    int cx = Math.max(0, x - controlEdgeSize / 2);
-                    int cy = Math.max(0, y + height - controlEdgeSize / 2);
-                    int cw = Math.min(controlEdgeSize, targetWidth - cx);
-                    int ch = Math.min(controlEdgeSize, targetHeight - cy);
-                    g.drawRect(cx, cy, cw, ch);
-                }
-                // bottom
-                {
-                    int cx = Math.max(0, x + width / 2 - controlEdgeSize / 2);
-                    int cy = Math.max(0, y + height - controlEdgeSize / 2);
-                    int cw = Math.min(controlEdgeSize, targetWidth - cx);
-                    int ch = Math.min(controlEdgeSize, targetHeight - cy);
-                    g.drawRect(cx, cy, cw, ch);
-                }
-                // bottom-right
-                {
-                    int cx = Math.max(0, x + width - controlEdgeSize / 2);
-                    int cy = Math.max(0, y + height - controlEdgeSize / 2);
-                    int cw = Math.min(controlEdgeSize, targetWidth - cx);
-                    int ch = Math.min(controlEdgeSize, targetHeight - cy);
-                    g.drawRect(cx, cy, cw, ch);
-                }
+        if (selectedObject != null && detectedObjects.contains(selectedObject)) {
+            g.setColor(new Color(255, 8, 0));
+            Rectangle objectRectangle = getViewRectangle(selectedObject);
+            g.draw(objectRectangle);
+            // draw controls for corners and edges: top-left, top, top-right, left, center, right, bottom-left, bottom, bottom-right
+            for (Rectangle controlRectangle : getControlRectangles(objectRectangle)) {
+                g.draw(controlRectangle);
             }
-        });
+        }
 
-        if (drawFrom != null && drawTo != null) {
+        Rectangle drawRectangle = getDrawRectangle();
+        if (drawRectangle != null) {
             // new rectangle
-            int fromX = drawFrom.x;
-            int fromY = drawFrom.y;
-            int toX = drawTo.x;
-            int toY = drawTo.y;
-            int x = Math.min(fromX, toX);
-            int y = Math.min(fromY, toY);
-            int width = Math.abs(toX - fromX);
-            int height = Math.abs(toY - fromY);
             g.setColor(new Color(0, 8, 255));
-            g.drawRect(x, y, width, height);
+            g.draw(drawRectangle);
         } else if (currentPoint != null) {
             // x-y-cross
             g.setColor(new Color(255, 8, 0));
-            g.drawLine(0, (int) currentPoint.getY(), scaledImage.getWidth(null), (int) currentPoint.getY());
-            g.drawLine((int) currentPoint.getX(), 0, (int) currentPoint.getX(), scaledImage.getHeight(null));
+            g.drawLine(0, (int) currentPoint.getY(), viewSize.width, (int) currentPoint.getY());
+            g.drawLine((int) currentPoint.getX(), 0, (int) currentPoint.getX(), viewSize.height);
+        }
+    }
+
+    private void invalidateBackgroundLayer() {
+        backgroundLayerValid = false;
+        repaint();
+    }
+
+    private boolean isBackgroundLayerValid(Rectangle visibleArea) {
+        return backgroundLayerValid &&
+                visibleArea.equals(backgroundArea) &&
+                viewSize.equals(backgroundViewSize) &&
+                editableImage.getDetectedObjects().equals(backgroundObjects) &&
+                editableImage.getTensorFlowDetections().size() == backgroundDetectionCount;
+    }
+
+    /**
+     * Paints the areas where the overlay was before the change and where it is now, if nothing else changed.
+     * Each area is painted on its own, the repaint manager would merge them into one rectangle spanning the view.
+     */
+    private void repaintOverlay(List<Rectangle> previousOverlayAreas) {
+        Rectangle visibleArea = getVisibleRect();
+        if (viewSize == null || !isBackgroundLayerValid(visibleArea)) {
+            repaint();
+            return;
+        }
+
+        // the parts of the overlay that did not move need no repaint
+        Set<Rectangle> damagedAreas = new LinkedHashSet<>(previousOverlayAreas);
+        for (Rectangle overlayArea : getOverlayAreas()) {
+            if (!damagedAreas.remove(overlayArea)) {
+                damagedAreas.add(overlayArea);
+            }
+        }
+        for (Rectangle damagedArea : damagedAreas) {
+            Rectangle visibleDamagedArea = damagedArea.intersection(visibleArea);
+            if (!visibleDamagedArea.isEmpty()) {
+                paintImmediately(visibleDamagedArea);
+            }
         }
     }
 
-    private Optional<DetectedObject> getObject(Image scaledImage, Point point) {
-        return editableImage
-                .getDetectedObjects()
-                .stream()
-                .filter(object -> DetectedObjectUtil.isObjectArea(scaledImage, object, point))
-                .findFirst();
+    /**
+     * @return the areas {@link #paintOverlay(Graphics2D)} draws on, the outlines of the rectangles only
+     */
+    private List<Rectangle> getOverlayAreas() {
+        List<Rectangle> overlayAreas = new ArrayList<>();
+        if (viewSize == null) {
+            return overlayAreas;
+        }
+
+        List<DetectedObject> detectedObjects = editableImage.getDetectedObjects();
+        if (hoveredObject != null && hoveredObject != selectedObject && detectedObjects.contains(hoveredObject)) {
+            addOutlineAreas(overlayAreas, getViewRectangle(hoveredObject));
+        }
+        if (selectedObject != null && detectedObjects.contains(selectedObject)) {
+            Rectangle objectRectangle = getViewRectangle(selectedObject);
+            addOutlineAreas(overlayAreas, objectRectangle);
+            for (Rectangle controlRectangle : getControlRectangles(objectRectangle)) {
+                Rectangle controlArea = new Rectangle(controlRectangle);
+                controlArea.grow(OVERLAY_MARGIN, OVERLAY_MARGIN);
+                overlayAreas.add(controlArea);
+            }
+        }
+
+        Rectangle drawRectangle = getDrawRectangle();
+        if (drawRectangle != null) {
+            addOutlineAreas(overlayAreas, drawRectangle);
+        } else if (currentPoint != null) {
+            overlayAreas.add(new Rectangle(0, currentPoint.y - OVERLAY_MARGIN, viewSize.width + 1, 2 * OVERLAY_MARGIN + 1));
+            overlayAreas.add(new Rectangle(currentPoint.x - OVERLAY_MARGIN, 0, 2 * OVERLAY_MARGIN + 1, viewSize.height + 1));
+        }
+        return overlayAreas;
+    }
+
+    private static void addOutlineAreas(List<Rectangle> overlayAreas, Rectangle rectangle) {
+        int size = 2 * OVERLAY_MARGIN + 1;
+        int x = rectangle.x - OVERLAY_MARGIN;
+        int y = rectangle.y - OVERLAY_MARGIN;
+        overlayAreas.add(new Rectangle(x, y, rectangle.width + size, size));
+        overlayAreas.add(new Rectangle(x, y + rectangle.height, rectangle.width + size, size));
+        overlayAreas.add(new Rectangle(x, y, size, rectangle.height + size));
+        overlayAreas.add(new Rectangle(x + rectangle.width, y, size, rectangle.height + size));
+    }
+
+    private Rectangle getViewRectangle(DetectedObject object) {
+        int x = (int) (viewSize.width * object.getLeft());
+        int y = (int) (viewSize.height * object.getTop());
+        int width = (int) (viewSize.width * (object.getRight() - object.getLeft()));
+        int height = (int) (viewSize.height * (object.getBottom() - object.getTop()));
+        return new Rectangle(x, y, width, height);
     }
 
-    private DetectedObject getObjectAtPoint(Image scaledImage, Point point) {
-        DetectedObject selectedObject = null;
-        for (DetectedObject object : editableImage.getDetectedObjects()) {
-            boolean selected = DetectedObjectUtil.isSelected(scaledImage, object, point);
-            if (selected) {
-                selectedObject = object;
+    private List<Rectangle> getControlRectangles(Rectangle objectRectangle) {
+        int controlEdgeSize = DetectedObjectUtil.CONTROL_SIZE_RADIUS * 2 + 1;
+        List<Rectangle> controlRectangles = new ArrayList<>(9);
+        for (int row = 0; row <= 2; row++) {
+            for (int column = 0; column <= 2; column++) {
+                int cx = Math.max(0, objectRectangle.x + objectRectangle.width * column / 2 - controlEdgeSize / 2);
+                int cy = Math.max(0, objectRectangle.y + objectRectangle.height * row / 2 - controlEdgeSize / 2);
+                int cw = Math.min(controlEdgeSize, viewSize.width - cx);
+                int ch = Math.min(controlEdgeSize, viewSize.height - cy);
+                controlRectangles.add(new Rectangle(cx, cy, cw, ch));
             }
         }
-        return selectedObject;
+        return controlRectangles;
+    }
+
+    /**
+     * @return null if no rectangle is being drawn
+     */
+    private Rectangle getDrawRectangle() {
+        if (drawFrom == null || drawTo == null) {
+            return null;
+        }
+        return new Rectangle(Math.min(drawFrom.x, drawTo.x), Math.min(drawFrom.y, drawTo.y), Math.abs(drawTo.x - drawFrom.x), Math.abs(drawTo.y - drawFrom.y));
     }
 
-    private static BufferedImage deepCopy(BufferedImage bi) {
-        ColorModel cm = bi.getColorModel();
-        boolean isAlphaPremultiplied = cm.isAlphaPremultiplied();
-        WritableRaster raster = bi.copyData(null);
-        return new BufferedImage(cm, raster, isAlphaPremultiplied, null);
+    /**
+     * Same layout as the screen, drawing it is a plain copy.
+     */
+    private BufferedImage createCompatibleImage(int width, int height) {
+        GraphicsConfiguration graphicsConfiguration = getGraphicsConfiguration();
+        return graphicsConfiguration != null ? graphicsConfiguration.createCompatibleImage(width, height) : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    private void updateViewSize() {
+        JViewport viewport = getViewport();
+        Dimension availableSize = viewport != null ? viewport.getExtentSize() : getParent().getSize();
+        double scale = Math.max(1, Math.max((double) editableImage.getWidth() / availableSize.width, (double) editableImage.getHeight() / availableSize.height));
+        int targetWidth = (int) (editableImage.getWidth() / scale * zoom);
+        int targetHeight = (int) (editableImage.getHeight() / scale * zoom);
+        if (viewSize == null || viewSize.width != targetWidth || viewSize.height != targetHeight) {
+            viewSize = new Dimension(targetWidth, targetHeight);
+            setPreferredSize(viewSize);
+            setMinimumSize(viewSize);
+            revalidate();
+        }
+    }
+
+    /**
+     * Zooms in or out keeping the image point under the cursor in place.
+     */
+    private void zoomAt(Point point, double factor) {
+        JViewport viewport = getViewport();
+        if (viewport == null || viewSize == null) {
+            return;
+        }
+
+        double fitWidth = viewSize.width / zoom;
+        double maxZoom = Math.max(1D, MAX_MAGNIFICATION * editableImage.getWidth() / fitWidth);
+        double newZoom = Math.max(1D, Math.min(maxZoom, zoom * factor));
+        if (newZoom == zoom) {
+            return;
+        }
+
+        Point pointInViewport = SwingUtilities.convertPoint(this, point, viewport);
+        double ratio = newZoom / zoom;
+        zoom = newZoom;
+        updateViewSize();
+        // lay out the new size right away, the view position depends on it
+        viewport.getParent().validate();
+        Point zoomedPoint = SwingUtilities.convertPoint(this, (int) (point.x * ratio), (int) (point.y * ratio), viewport.getView());
+        scrollTo(viewport, zoomedPoint.x - pointInViewport.x, zoomedPoint.y - pointInViewport.y);
+        repaint();
+    }
+
+    private void resetZoom() {
+        zoom = 1D;
+        updateViewSize();
+        repaint();
+    }
+
+    /**
+     * @return the point moved to the location, a new one if there is none
+     */
+    private static Point moveTo(Point point, int x, int y) {
+        if (point == null) {
+            return new Point(x, y);
+        }
+        point.setLocation(x, y);
+        return point;
+    }
+
+    private static void scrollTo(JViewport viewport, int x, int y) {
+        Dimension viewportViewSize = viewport.getViewSize();
+        Dimension extentSize = viewport.getExtentSize();
+        int maxX = Math.max(0, viewportViewSize.width - extentSize.width);
+        int maxY = Math.max(0, viewportViewSize.height - extentSize.height);
+        viewport.setViewPosition(new Point(Math.max(0, Math.min(maxX, x)), Math.max(0, Math.min(maxY, y))));
+    }
+
+    private JViewport getViewport() {
+        return (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+    }
+
+    private Optional<DetectedObject> getObject(Point point) {
+        return Optional.ofNullable(getObjectIndex().getObject(point));
+    }
+
+    private DetectedObject getObjectAtPoint(Point point) {
+        return getObjectIndex().getObjectAtControl(point);
+    }
+
+    /**
+     * Rebuilt after the objects were edited or the view was resized.
+     */
+    private DetectedObjectIndex getObjectIndex() {
+        List<DetectedObject> detectedObjects = editableImage.getDetectedObjects();
+        if (objectIndex == null || !objectIndex.isUpToDate(detectedObjects, viewSize)) {
+            objectIndex = new DetectedObjectIndex(detectedObjects, viewSize);
+        }
+        return objectIndex;
+    }
+
+    private static Cursor getControlCursor(ObjectControl objectControl) {
+        if (objectControl == null) {
+            return Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR);
+        }
+        return switch (objectControl) {
+            case TOP_LEFT -> Cursor.getPredefinedCursor(Cursor.NW_RESIZE_CURSOR);
+            case TOP -> Cursor.getPredefinedCursor(Cursor.N_RESIZE_CURSOR);
+            case TOP_RIGHT -> Cursor.getPredefinedCursor(Cursor.NE_RESIZE_CURSOR);
+            case LEFT -> Cursor.getPredefinedCursor(Cursor.W_RESIZE_CURSOR);
+            case MOVE -> Cursor.getPredefinedCursor(Cursor.MOVE_CURSOR);
+            case RIGHT -> Cursor.getPredefinedCursor(Cursor.E_RESIZE_CURSOR);
+            case BOTTOM_LEFT -> Cursor.getPredefinedCursor(Cursor.SW_RESIZE_CURSOR);
+            case BOTTOM -> Cursor.getPredefinedCursor(Cursor.S_RESIZE_CURSOR);
+            case BOTTOM_RIGHT -> Cursor.getPredefinedCursor(Cursor.SE_RESIZE_CURSOR);
+        };
     }
 }
@@ -0,0 +1,99 @@
+package com.github.tornaia.jimglabel.gui.component;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Draws an image scaled down to the view. The smooth result is computed by halving the image with bilinear
+ * filtering until it reaches the size, which looks like area averaging at a fraction of the cost, and is cached per
+ * size. While the size keeps changing (live window resize, zoom steps) the image is scaled with nearest neighbour
+ * and the smooth version follows once the size has settled.
+ */
+public class ScaledImageRenderer {
+
+    private static final int MAX_CACHED_SIZES = 3;
+    private static final int SETTLE_DELAY_MS = 150;
+
+    private final BufferedImage image;
+    private final JComponent component;
+    private final Map<Dimension, BufferedImage> scaledImages = new LinkedHashMap<>(4, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Dimension, BufferedImage> eldest) {
+            return size() > MAX_CACHED_SIZES;
+        }
+    };
+    private final Timer settleTimer;
+    private Dimension pendingSize;
+
+    /**
+     * @param component           the image is drawn on, the scaled images are compatible with its screen
+     * @param smoothImageCallback called on the event dispatch thread when the smooth image is ready
+     */
+    public ScaledImageRenderer(BufferedImage image, JComponent component, Runnable smoothImageCallback) {
+        this.image = image;
+        this.component = component;
+        this.settleTimer = new Timer(SETTLE_DELAY_MS, e -> {
+            scaledImages.put(pendingSize, scale(pendingSize));
+            smoothImageCallback.run();
+        });
+        this.settleTimer.setRepeats(false);
+    }
+
+    public void paint(Graphics g, int width, int height) {
+        Dimension size = new Dimension(width, height);
+        BufferedImage scaledImage = scaledImages.get(size);
+        if (scaledImage == null && scaledImages.isEmpty()) {
+            // first paint of the image, nothing is being resized
+            scaledImage = scale(size);
+            scaledImages.put(size, scaledImage);
+        }
+
+        if (scaledImage != null) {
+            g.drawImage(scaledImage, 0, 0, null);
+            return;
+        }
+
+        Graphics2D g2d = (Graphics2D) g.create();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g2d.drawImage(image, 0, 0, width, height, null);
+        g2d.dispose();
+        pendingSize = size;
+        settleTimer.restart();
+    }
+
+    public void dispose() {
+        settleTimer.stop();
+        scaledImages.clear();
+    }
+
+    private BufferedImage scale(Dimension size) {
+        int targetWidth = Math.max(1, size.width);
+        int targetHeight = Math.max(1, size.height);
+        BufferedImage scaledImage = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            // halving at most, bilinear filtering skips pixels when shrinking more in one step
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage halvedImage = createCompatibleImage(width, height);
+            Graphics2D g2d = halvedImage.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.drawImage(scaledImage, 0, 0, width, height, null);
+            g2d.dispose();
+            scaledImage = halvedImage;
+        } while (width != targetWidth || height != targetHeight);
+        return scaledImage;
+    }
+
+    /**
+     * Same layout as the screen, drawing it is a plain copy.
+     */
+    private BufferedImage createCompatibleImage(int width, int height) {
+        GraphicsConfiguration graphicsConfiguration = component.getGraphicsConfiguration();
+        return graphicsConfiguration != null ? graphicsConfiguration.createCompatibleImage(width, height) : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+}
@@ -0,0 +1,198 @@
+package com.github.tornaia.jimglabel.gui.component;
+
+import com.github.tornaia.jimglabel.gui.util.ImageDecodeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tiles of an image at power of two resolutions, level 0 is the full resolution. Tiles are decoded from the file
+ * content only when they are visible, the missing tiles of the view are decoded together with one subsampled region
+ * read. Only the least recently drawn tiles are kept. Everything but the decoding runs on the event dispatch thread.
+ * <p>
+ * It is the zoom-in path only: the display image is drawn as long as it is sharp enough, so only the levels sharper
+ * than the display image are decoded. The display image is subsampled to about the screen size, that is mostly level
+ * 0, the coarser levels are used only when the display image is subsampled by three or more.
+ */
+public class TilePyramid {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TilePyramid.class);
+
+    public static final int TILE_SIZE = 256;
+
+    private static final int MAX_TILES = 192;
+
+    private static final ExecutorService TILE_DECODER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tile-decoder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final byte[] content;
+    private final int width;
+    private final int height;
+    private final Runnable tilesDecodedCallback;
+    private final Map<Tile, BufferedImage> tiles = new LinkedHashMap<>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Tile, BufferedImage> eldest) {
+            return size() > MAX_TILES;
+        }
+    };
+    private boolean decoding;
+    private volatile boolean disposed;
+
+    /**
+     * @param tilesDecodedCallback called on the event dispatch thread when new tiles can be drawn
+     */
+    public TilePyramid(byte[] content, int width, int height, Runnable tilesDecodedCallback) {
+        this.content = content;
+        this.width = width;
+        this.height = height;
+        this.tilesDecodedCallback = tilesDecodedCallback;
+    }
+
+    /**
+     * Draws the decoded tiles of the visible area and starts decoding the missing ones, the caller paints a
+     * placeholder below.
+     *
+     * @param visibleArea in view coordinates
+     * @param viewSize    size of the whole image in the view
+     */
+    public void paint(Graphics2D g, Rectangle visibleArea, Dimension viewSize) {
+        double scale = (double) viewSize.width / width;
+        int level = getLevel(scale);
+        int tileSpan = TILE_SIZE << level;
+
+        int fromTileX = Math.max(0, (int) (visibleArea.x / scale) / tileSpan);
+        int fromTileY = Math.max(0, (int) (visibleArea.y / scale) / tileSpan);
+        int toTileX = Math.min((width - 1) / tileSpan, (int) ((visibleArea.x + visibleArea.width) / scale) / tileSpan);
+        int toTileY = Math.min((height - 1) / tileSpan, (int) ((visibleArea.y + visibleArea.height) / scale) / tileSpan);
+
+        Rectangle missingTiles = null;
+        for (int tileY = fromTileY; tileY <= toTileY; tileY++) {
+            for (int tileX = fromTileX; tileX <= toTileX; tileX++) {
+                BufferedImage tileImage = tiles.get(new Tile(level, tileX, tileY));
+                if (tileImage == null) {
+                    missingTiles = missingTiles == null ? new Rectangle(tileX, tileY, 1, 1) : missingTiles.union(new Rectangle(tileX, tileY, 1, 1));
+                    continue;
+                }
+
+                int x0 = (int) Math.round(tileX * tileSpan * scale);
+                int y0 = (int) Math.round(tileY * tileSpan * scale);
+                int x1 = (int) Math.round(Math.min(width, (tileX + 1) * tileSpan) * scale);
+                int y1 = (int) Math.round(Math.min(height, (tileY + 1) * tileSpan) * scale);
+                g.drawImage(tileImage, x0, y0, x1, y1, 0, 0, tileImage.getWidth(), tileImage.getHeight(), null);
+            }
+        }
+
+        if (missingTiles != null && !decoding) {
+            decoding = true;
+            Rectangle tilesToDecode = missingTiles;
+            TILE_DECODER.execute(() -> decode(level, tilesToDecode));
+        }
+    }
+
+    /**
+     * Drops the tiles, decoding still queued for this image is skipped.
+     */
+    public void dispose() {
+        disposed = true;
+        tiles.clear();
+    }
+
+    /**
+     * @param scale view pixels per image pixel
+     * @return the lowest resolution level that is still at least as sharp as the view
+     */
+    public static int getLevel(double scale) {
+        int level = 0;
+        while (scale * (2 << level) <= 1D) {
+            level++;
+        }
+        return level;
+    }
+
+    private void decode(int level, Rectangle tileArea) {
+        if (disposed) {
+            return;
+        }
+
+        int tileSpan = TILE_SIZE << level;
+        int subsampling = 1 << level;
+        Rectangle region = new Rectangle(tileArea.x * tileSpan, tileArea.y * tileSpan, tileArea.width * tileSpan, tileArea.height * tileSpan).intersection(new Rectangle(width, height));
+        Map<Tile, BufferedImage> decodedTiles = new LinkedHashMap<>();
+        try {
+            long start = System.currentTimeMillis();
+            BufferedImage regionImage = ImageDecodeUtil.decode(content, subsampling, region);
+            for (int tileY = 0; tileY < tileArea.height; tileY++) {
+                for (int tileX = 0; tileX < tileArea.width; tileX++) {
+                    int x = tileX * TILE_SIZE;
+                    int y = tileY * TILE_SIZE;
+                    int tileWidth = Math.min(TILE_SIZE, regionImage.getWidth() - x);
+                    int tileHeight = Math.min(TILE_SIZE, regionImage.getHeight() - y);
+                    if (tileWidth <= 0 || tileHeight <= 0) {
+                        continue;
+                    }
+                    // copied, a sub image would keep the raster of the whole region alive
+                    BufferedImage tileImage = new BufferedImage(tileWidth, tileHeight, regionImage.getType() == BufferedImage.TYPE_CUSTOM ? BufferedImage.TYPE_INT_RGB : regionImage.getType());
+                    Graphics2D g2d = tileImage.createGraphics();
+                    g2d.drawImage(regionImage, 0, 0, tileWidth, tileHeight, x, y, x + tileWidth, y + tileHeight, null);
+                    g2d.dispose();
+                    decodedTiles.put(new Tile(level, tileArea.x + tileX, tileArea.y + tileY), tileImage);
+                }
+            }
+            LOG.debug("Decoded {} tiles of level {} in {} ms", decodedTiles.size(), level, (System.currentTimeMillis() - start));
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Failed to decode tiles", e);
+        }
+
+        SwingUtilities.invokeLater(() -> {
+            decoding = false;
+            // nothing to draw after a failure, retried on the next paint
+            if (disposed || decodedTiles.isEmpty()) {
+                return;
+            }
+            tiles.putAll(decodedTiles);
+            tilesDecodedCallback.run();
+        });
+    }
+
+    private static final class Tile {
+
+        private final int level;
+        private final int x;
+        private final int y;
+
+        private Tile(int level, int x, int y) {
+            this.level = level;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Tile tile = (Tile) o;
+            return level == tile.level && x == tile.x && y == tile.y;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(level, x, y);
+        }
+    }
+}
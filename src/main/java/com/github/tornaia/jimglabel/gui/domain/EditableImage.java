@@ -1,22 +1,34 @@
 package com.github.tornaia.jimglabel.gui.domain;
 
+import com.github.tornaia.jimglabel.gui.util.ImageDecodeUtil;
 import com.github.tornaia.jimglabel.tf.Detection;
 
 import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
 
 public class EditableImage {
 
     private final Path file;
-    private final BufferedImage bufferedImage;
+    private final BufferedImage displayImage;
+    private final int width;
+    private final int height;
     private final List<DetectedObject> detectedObjects;
     private final List<Detection> tensorFlowDetections;
     private final byte[] content;
+    private BufferedImage bufferedImage;
 
-    public EditableImage(Path file, BufferedImage bufferedImage, List<DetectedObject> detectedObjects, List<Detection> tensorFlowDetections, byte[] content) {
+    /**
+     * @param displayImage subsampled for the screen, the full resolution image is decoded only when it is needed
+     * @param width        of the full resolution image
+     * @param height       of the full resolution image
+     */
+    public EditableImage(Path file, BufferedImage displayImage, int width, int height, List<DetectedObject> detectedObjects, List<Detection> tensorFlowDetections, byte[] content) {
         this.file = file;
-        this.bufferedImage = bufferedImage;
+        this.displayImage = displayImage;
+        this.width = width;
+        this.height = height;
         this.detectedObjects = detectedObjects;
         this.tensorFlowDetections = tensorFlowDetections;
         this.content = content;
@@ -26,10 +38,59 @@ public class EditableImage {
         return file;
     }
 
-    public BufferedImage getBufferedImage() {
+    public BufferedImage getDisplayImage() {
+        return displayImage;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the full resolution image, decoded on the first call
+     */
+    public synchronized BufferedImage getBufferedImage() {
+        if (bufferedImage == null) {
+            if (displayImage.getWidth() == width && displayImage.getHeight() == height) {
+                bufferedImage = displayImage;
+            } else {
+                try {
+                    bufferedImage = ImageDecodeUtil.decode(content, 1, null);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Must not happen", e);
+                }
+            }
+        }
         return bufferedImage;
     }
 
+    /**
+     * @param size the longest side needed, 0 for the full resolution
+     * @return the display image if it is big enough, a subsampled or the full resolution image decoded otherwise
+     */
+    public BufferedImage getImage(int size) {
+        if (size <= 0) {
+            return getBufferedImage();
+        }
+        if (Math.max(displayImage.getWidth(), displayImage.getHeight()) >= Math.min(size, Math.max(width, height))) {
+            return displayImage;
+        }
+
+        int subsampling = ImageDecodeUtil.getSubsampling(width, height, size, size);
+        if (subsampling == 1) {
+            return getBufferedImage();
+        }
+        try {
+            return ImageDecodeUtil.decode(content, subsampling, null);
+        } catch (IOException e) {
+            throw new IllegalStateException("Must not happen", e);
+        }
+    }
+
     public List<DetectedObject> getDetectedObjects() {
         return detectedObjects;
     }
@@ -0,0 +1,35 @@
+package com.github.tornaia.jimglabel.gui.event;
+
+import com.github.tornaia.jimglabel.common.event.AbstractEvent;
+
+public class PreLabellingProgressEvent extends AbstractEvent {
+
+    private final int processed;
+    private final int total;
+    private final boolean running;
+    private final boolean paused;
+
+    public PreLabellingProgressEvent(int processed, int total, boolean running, boolean paused, long timestamp) {
+        super(timestamp);
+        this.processed = processed;
+        this.total = total;
+        this.running = running;
+        this.paused = paused;
+    }
+
+    public int getProcessed() {
+        return processed;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+}
@@ -0,0 +1,290 @@
+package com.github.tornaia.jimglabel.gui.service;
+
+import com.github.tornaia.jimglabel.common.setting.SessionSettingsProvider;
+import com.github.tornaia.jimglabel.gui.util.FileUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the annotation files behind the editor. Edits of an image within the write delay are coalesced into one
+ * write, done on a background thread into a temporary file that replaces the annotation file atomically.
+ * <p>
+ * Every edit is appended to a journal in the local settings directory first, so edits not written yet survive a crash
+ * and are written on the next start. The journal is truncated once nothing is pending.
+ * <p>
+ * Journal format: records of the annotation file path and the content, both as int length and UTF-8 bytes. A length
+ * of -1 for the content deletes the annotation file. A record torn by a crash ends the journal.
+ */
+@Component
+public class AnnotationWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnnotationWriter.class);
+
+    private static final String JOURNAL_FILENAME = "annotations.journal";
+    private static final int DELETED = -1;
+
+    private final ImagePrefetcher imagePrefetcher;
+    private final long writeDelayMs;
+    private final Path journalFile;
+    private final ScheduledExecutorService executorService;
+    // annotation file to content, null content deletes the file
+    private final Map<Path, String> pendingAnnotations = new LinkedHashMap<>();
+    private final Map<Path, Path> pendingImageFiles = new LinkedHashMap<>();
+    private FileChannel journal;
+    private ScheduledFuture<?> scheduledWrite;
+
+    @Autowired
+    public AnnotationWriter(ImagePrefetcher imagePrefetcher, SessionSettingsProvider sessionSettingsProvider, @Value("${annotation.write-delay-ms:1000}") long writeDelayMs) {
+        this.imagePrefetcher = imagePrefetcher;
+        this.writeDelayMs = writeDelayMs;
+        this.journalFile = sessionSettingsProvider.getSettingsDirectory().resolve(JOURNAL_FILENAME);
+        this.executorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "annotation-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        replayJournal();
+        LOG.info("Annotation write delay: {} ms, journal: {}", writeDelayMs, journalFile);
+    }
+
+    /**
+     * Returns at once, the annotation file is written after the write delay unless it is edited again.
+     */
+    public void write(Path imageFile, String content) {
+        enqueue(imageFile, content);
+    }
+
+    public void delete(Path imageFile) {
+        enqueue(imageFile, null);
+    }
+
+    /**
+     * @return the content not written to the annotation file of the image yet, null if nothing is pending
+     */
+    public synchronized String getPendingContent(Path imageFile) {
+        return pendingAnnotations.get(FileUtil.getAnnotationFile(imageFile));
+    }
+
+    /**
+     * Starts writing everything pending without waiting for the write delay.
+     */
+    public synchronized void flush() {
+        if (pendingAnnotations.isEmpty()) {
+            return;
+        }
+        if (scheduledWrite != null) {
+            scheduledWrite.cancel(false);
+        }
+        scheduledWrite = executorService.schedule(this::writePendingAnnotations, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes everything pending before the application exits.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        flush();
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
+                LOG.warn("Annotation files are still being written, the journal keeps them for the next start");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            closeJournal();
+        }
+    }
+
+    private synchronized void enqueue(Path imageFile, String content) {
+        Path annotationFile = FileUtil.getAnnotationFile(imageFile);
+        try {
+            appendJournal(annotationFile, content);
+        } catch (IOException e) {
+            LOG.warn("Failed to append to annotation journal: {}", journalFile, e);
+        }
+        pendingAnnotations.remove(annotationFile);
+        pendingAnnotations.put(annotationFile, content);
+        pendingImageFiles.put(annotationFile, imageFile);
+        if (scheduledWrite == null || scheduledWrite.isDone()) {
+            scheduledWrite = executorService.schedule(this::writePendingAnnotations, writeDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void writePendingAnnotations() {
+        Map<Path, String> annotations;
+        Map<Path, Path> imageFiles;
+        synchronized (this) {
+            annotations = new LinkedHashMap<>(pendingAnnotations);
+            imageFiles = new LinkedHashMap<>(pendingImageFiles);
+        }
+
+        for (Map.Entry<Path, String> entry : annotations.entrySet()) {
+            Path annotationFile = entry.getKey();
+            String content = entry.getValue();
+            try {
+                writeAnnotationFile(annotationFile, content);
+            } catch (IOException e) {
+                LOG.warn("Failed to write annotation file, retrying later: {}", annotationFile, e);
+                continue;
+            }
+
+            boolean written;
+            synchronized (this) {
+                // edited again while it was being written, the new content stays pending
+                written = pendingAnnotations.containsKey(annotationFile) && pendingAnnotations.get(annotationFile) == content;
+                if (written) {
+                    pendingAnnotations.remove(annotationFile);
+                    pendingImageFiles.remove(annotationFile);
+                }
+            }
+            if (written) {
+                // a prefetch may have read the annotation file before it was written, the decoded image is kept
+                imagePrefetcher.updateAnnotation(imageFiles.get(annotationFile), content);
+            }
+        }
+
+        synchronized (this) {
+            if (pendingAnnotations.isEmpty()) {
+                truncateJournal();
+            } else if (!executorService.isShutdown()) {
+                // failed or edited in the meantime, the journal keeps them if the application exits first
+                scheduledWrite = executorService.schedule(this::writePendingAnnotations, writeDelayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private static void writeAnnotationFile(Path annotationFile, String content) throws IOException {
+        if (content == null) {
+            Files.deleteIfExists(annotationFile);
+            return;
+        }
+
+        // readers never see a partially written file
+        Path temporaryFile = annotationFile.resolveSibling(annotationFile.getFileName() + ".tmp");
+        Files.writeString(temporaryFile, content, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SYNC);
+        Files.move(temporaryFile, annotationFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void appendJournal(Path annotationFile, String content) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        try (DataOutputStream dataOutputStream = new DataOutputStream(record)) {
+            byte[] annotationFileBytes = annotationFile.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8);
+            dataOutputStream.writeInt(annotationFileBytes.length);
+            dataOutputStream.write(annotationFileBytes);
+            if (content == null) {
+                dataOutputStream.writeInt(DELETED);
+            } else {
+                byte[] contentBytes = content.getBytes(StandardCharsets.UTF_8);
+                dataOutputStream.writeInt(contentBytes.length);
+                dataOutputStream.write(contentBytes);
+            }
+        }
+
+        if (journal == null) {
+            Files.createDirectories(journalFile.getParent());
+            journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        // one write per record, the page cache keeps it if the application crashes
+        ByteBuffer buffer = ByteBuffer.wrap(record.toByteArray());
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+    }
+
+    private void truncateJournal() {
+        try {
+            if (journal != null) {
+                journal.truncate(0);
+            } else {
+                Files.deleteIfExists(journalFile);
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to truncate annotation journal: {}", journalFile, e);
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to close annotation journal: {}", journalFile, e);
+        }
+        journal = null;
+    }
+
+    /**
+     * Writes the last content of every annotation file in the journal, the edits of the previous run that were not
+     * written when it ended.
+     */
+    private void replayJournal() {
+        Map<Path, String> annotations = new LinkedHashMap<>();
+        try (DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile)))) {
+            while (true) {
+                byte[] annotationFileBytes = new byte[dataInputStream.readInt()];
+                dataInputStream.readFully(annotationFileBytes);
+                int contentLength = dataInputStream.readInt();
+                String content = null;
+                if (contentLength != DELETED) {
+                    byte[] contentBytes = new byte[contentLength];
+                    dataInputStream.readFully(contentBytes);
+                    content = new String(contentBytes, StandardCharsets.UTF_8);
+                }
+                Path annotationFile = Path.of(new String(annotationFileBytes, StandardCharsets.UTF_8));
+                annotations.remove(annotationFile);
+                annotations.put(annotationFile, content);
+            }
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (EOFException e) {
+            // end of the journal, or a record torn by a crash
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Failed to read annotation journal, replaying what could be read: {}", journalFile, e);
+        }
+
+        boolean restored = true;
+        for (Map.Entry<Path, String> entry : annotations.entrySet()) {
+            Path annotationFile = entry.getKey();
+            try {
+                writeAnnotationFile(annotationFile, entry.getValue());
+                LOG.info("Annotation file restored from journal: {}", annotationFile);
+            } catch (IOException e) {
+                LOG.warn("Failed to restore annotation file from journal: {}", annotationFile, e);
+                restored = false;
+            }
+        }
+        if (restored) {
+            truncateJournal();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.tornaia.jimglabel.gui.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.DataBuffer;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Least recently used cache of decoded images, bounded by the bytes of the rasters and the file contents. Images
+ * evicted from the budget can optionally be kept behind soft references, the garbage collector frees them before
+ * the heap runs out, but they do not count against the budget.
+ */
+@Component
+public class DecodedImageCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DecodedImageCache.class);
+
+    private final long maxBytes;
+    private final boolean softReferences;
+    private final LinkedHashMap<Path, PrefetchedImage> images = new LinkedHashMap<>(16, 0.75F, true);
+    private final Map<Path, SoftImageReference> softImages = new HashMap<>();
+    private final ReferenceQueue<PrefetchedImage> referenceQueue = new ReferenceQueue<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long sizeInBytes;
+
+    @Autowired
+    public DecodedImageCache(@Value("${image.cache.max-bytes:536870912}") long maxBytes, @Value("${image.cache.soft-references:false}") boolean softReferences) {
+        this.maxBytes = maxBytes;
+        this.softReferences = softReferences;
+        LOG.info("Decoded image cache max bytes: {}, soft references: {}", maxBytes, softReferences);
+    }
+
+    /**
+     * @return null if the image is not cached
+     */
+    public synchronized PrefetchedImage get(Path imageFile) {
+        expungeSoftImages();
+        PrefetchedImage image = images.get(imageFile);
+        if (image == null) {
+            SoftImageReference softImage = softImages.remove(imageFile);
+            image = softImage != null ? softImage.get() : null;
+            if (image != null) {
+                // back under the budget, it is the most recently used again
+                putInternal(image);
+            }
+        }
+
+        if (image == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return image;
+    }
+
+    public synchronized boolean contains(Path imageFile) {
+        expungeSoftImages();
+        SoftImageReference softImage = softImages.get(imageFile);
+        return images.containsKey(imageFile) || (softImage != null && softImage.get() != null);
+    }
+
+    public synchronized void put(PrefetchedImage image) {
+        expungeSoftImages();
+        softImages.remove(image.getFile());
+        PrefetchedImage previousImage = images.remove(image.getFile());
+        if (previousImage != null) {
+            sizeInBytes -= sizeOf(previousImage);
+        }
+        putInternal(image);
+    }
+
+    /**
+     * Replaces the annotation of the image if it is cached, the decoded pixels are kept.
+     */
+    public synchronized void updateAnnotation(Path imageFile, String annotationContent) {
+        expungeSoftImages();
+        PrefetchedImage image = images.remove(imageFile);
+        if (image != null) {
+            sizeInBytes -= sizeOf(image);
+            putInternal(image.withAnnotationContent(annotationContent));
+            return;
+        }
+
+        SoftImageReference softImage = softImages.get(imageFile);
+        image = softImage != null ? softImage.get() : null;
+        if (image != null) {
+            softImages.put(imageFile, new SoftImageReference(image.withAnnotationContent(annotationContent), referenceQueue));
+        }
+    }
+
+    public synchronized void invalidate(Path imageFile) {
+        softImages.remove(imageFile);
+        PrefetchedImage image = images.remove(imageFile);
+        if (image != null) {
+            sizeInBytes -= sizeOf(image);
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    private void putInternal(PrefetchedImage image) {
+        long size = sizeOf(image);
+        if (size > maxBytes) {
+            LOG.debug("Image does not fit into the cache: {}, bytes: {}", image.getFile(), size);
+            return;
+        }
+
+        images.put(image.getFile(), image);
+        sizeInBytes += size;
+
+        Iterator<PrefetchedImage> iterator = images.values().iterator();
+        while (sizeInBytes > maxBytes) {
+            PrefetchedImage eldestImage = iterator.next();
+            iterator.remove();
+            sizeInBytes -= sizeOf(eldestImage);
+            evictions.incrementAndGet();
+            if (softReferences) {
+                softImages.put(eldestImage.getFile(), new SoftImageReference(eldestImage, referenceQueue));
+            }
+        }
+        LOG.debug("Decoded image cache bytes: {}, hits: {}, misses: {}, evictions: {}", sizeInBytes, hits.get(), misses.get(), evictions.get());
+    }
+
+    private void expungeSoftImages() {
+        Reference<? extends PrefetchedImage> reference;
+        while ((reference = referenceQueue.poll()) != null) {
+            SoftImageReference softImage = (SoftImageReference) reference;
+            softImages.remove(softImage.file, softImage);
+        }
+    }
+
+    private static long sizeOf(PrefetchedImage image) {
+        long size = image.getContent().length;
+        if (image.getDisplayImage() != null) {
+            DataBuffer dataBuffer = image.getDisplayImage().getRaster().getDataBuffer();
+            size += (long) dataBuffer.getSize() * dataBuffer.getNumBanks() * DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / 8;
+        }
+        if (image.getAnnotationContent() != null) {
+            size += 2L * image.getAnnotationContent().length();
+        }
+        return size;
+    }
+
+    private static class SoftImageReference extends SoftReference<PrefetchedImage> {
+
+        private final Path file;
+
+        private SoftImageReference(PrefetchedImage image, ReferenceQueue<PrefetchedImage> referenceQueue) {
+            super(image, referenceQueue);
+            this.file = image.getFile();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.tornaia.jimglabel.gui.service;
+
+import com.github.tornaia.jimglabel.tf.Detection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detections keyed by the SHA-256 of the image content and the fingerprint of the model that produced them. Recently
+ * used entries are kept in memory, everything is stored in {@code <source>/.detections/<model>/<image>.bin}, one
+ * directory per model so the results of an old model can be deleted at once.
+ * <p>
+ * File format: magic, version, the classes referenced by the detections (id, card id, name), then the detections
+ * (class index, top, left, bottom, right, score).
+ */
+@Component
+public class DetectionCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DetectionCache.class);
+
+    private static final String DETECTIONS_DIRECTORY = ".detections";
+    private static final int MAGIC = 0x4A444554;
+    private static final int VERSION = 1;
+
+    private final ImageEditorService imageEditorService;
+    private final Map<String, List<Detection>> memoryCache;
+
+    @Autowired
+    public DetectionCache(ImageEditorService imageEditorService, @Value("${detection.cache.memory-entries:256}") int memoryEntries) {
+        this.imageEditorService = imageEditorService;
+        this.memoryCache = new LinkedHashMap<>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Detection>> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+    }
+
+    public List<Detection> get(String hash, String modelFingerprint) {
+        String key = modelFingerprint + "/" + hash;
+        synchronized (memoryCache) {
+            List<Detection> detections = memoryCache.get(key);
+            if (detections != null) {
+                return detections;
+            }
+        }
+
+        Path file = getFile(hash, modelFingerprint);
+        if (file == null) {
+            return null;
+        }
+
+        List<Detection> detections;
+        try (DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            detections = read(dataInputStream);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOG.warn("Failed to read detections file: {}", file, e);
+            return null;
+        }
+
+        synchronized (memoryCache) {
+            memoryCache.put(key, detections);
+        }
+        return detections;
+    }
+
+    public boolean contains(String hash, String modelFingerprint) {
+        synchronized (memoryCache) {
+            if (memoryCache.containsKey(modelFingerprint + "/" + hash)) {
+                return true;
+            }
+        }
+        Path file = getFile(hash, modelFingerprint);
+        return file != null && Files.isRegularFile(file);
+    }
+
+    public void put(String hash, String modelFingerprint, List<Detection> detections) {
+        List<Detection> unmodifiableDetections = Collections.unmodifiableList(new ArrayList<>(detections));
+        synchronized (memoryCache) {
+            memoryCache.put(modelFingerprint + "/" + hash, unmodifiableDetections);
+        }
+
+        Path file = getFile(hash, modelFingerprint);
+        if (file == null) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(file.getParent());
+            // readers never see a partially written file, a unique name per put so puts of the same entry do not mix
+            Path temporaryFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                    write(dataOutputStream, unmodifiableDetections);
+                }
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                // left over only if the write or the move failed
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to write detections file: {}", file, e);
+        }
+    }
+
+    private Path getFile(String hash, String modelFingerprint) {
+        String sourceDirectory = imageEditorService.getSourceDirectory();
+        if (sourceDirectory == null) {
+            return null;
+        }
+        // 64 bits of the model fingerprint are plenty to tell a handful of models apart
+        return Path.of(sourceDirectory).resolve(DETECTIONS_DIRECTORY).resolve(modelFingerprint.substring(0, 16)).resolve(hash + ".bin");
+    }
+
+    private static void write(DataOutputStream dataOutputStream, List<Detection> detections) throws IOException {
+        // a hundred detections usually share a few classes, write the names only once
+        Map<Integer, Integer> classIndexes = new HashMap<>();
+        List<Detection> classes = new ArrayList<>();
+        for (Detection detection : detections) {
+            if (!classIndexes.containsKey(detection.getId())) {
+                classIndexes.put(detection.getId(), classes.size());
+                classes.add(detection);
+            }
+        }
+
+        dataOutputStream.writeInt(MAGIC);
+        dataOutputStream.writeByte(VERSION);
+        dataOutputStream.writeShort(classes.size());
+        for (Detection clazz : classes) {
+            dataOutputStream.writeInt(clazz.getId());
+            dataOutputStream.writeUTF(clazz.getCardId());
+            dataOutputStream.writeUTF(clazz.getName());
+        }
+        dataOutputStream.writeShort(detections.size());
+        for (Detection detection : detections) {
+            dataOutputStream.writeShort(classIndexes.get(detection.getId()));
+            dataOutputStream.writeFloat(detection.getTop());
+            dataOutputStream.writeFloat(detection.getLeft());
+            dataOutputStream.writeFloat(detection.getBottom());
+            dataOutputStream.writeFloat(detection.getRight());
+            dataOutputStream.writeFloat(detection.getScore());
+        }
+    }
+
+    private static List<Detection> read(DataInputStream dataInputStream) throws IOException {
+        int magic = dataInputStream.readInt();
+        int version = dataInputStream.readUnsignedByte();
+        if (magic != MAGIC || version != VERSION) {
+            throw new IOException("Unknown format, magic: " + Integer.toHexString(magic) + ", version: " + version);
+        }
+
+        int classCount = dataInputStream.readUnsignedShort();
+        int[] ids = new int[classCount];
+        String[] cardIds = new String[classCount];
+        String[] names = new String[classCount];
+        for (int i = 0; i < classCount; ++i) {
+            ids[i] = dataInputStream.readInt();
+            cardIds[i] = dataInputStream.readUTF();
+            names[i] = dataInputStream.readUTF();
+        }
+
+        int detectionCount = dataInputStream.readUnsignedShort();
+        List<Detection> detections = new ArrayList<>(detectionCount);
+        for (int i = 0; i < detectionCount; ++i) {
+            int classIndex = dataInputStream.readUnsignedShort();
+            float top = dataInputStream.readFloat();
+            float left = dataInputStream.readFloat();
+            float bottom = dataInputStream.readFloat();
+            float right = dataInputStream.readFloat();
+            float score = dataInputStream.readFloat();
+            detections.add(new Detection(top, left, bottom, right, ids[classIndex], cardIds[classIndex], names[classIndex], score));
+        }
+        return Collections.unmodifiableList(detections);
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.tornaia.jimglabel.gui.service;
+
+import com.github.tornaia.jimglabel.gui.domain.EditableImage;
+import com.github.tornaia.jimglabel.tf.Detection;
+import com.github.tornaia.jimglabel.tf.TFService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Detections of the source images: looked up in the {@link DetectionCache} by the SHA-256 of the image content and
+ * the fingerprint of the active model, analyzed and cached otherwise. Hashing and the lookup run on a background
+ * thread, the cache may be on a network share.
+ */
+@Component
+public class DetectionService {
+
+    private final TFService tfService;
+    private final DetectionCache detectionCache;
+    private final ExecutorService executorService;
+
+    @Autowired
+    public DetectionService(TFService tfService, DetectionCache detectionCache) {
+        this.tfService = tfService;
+        this.detectionCache = detectionCache;
+        this.executorService = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "detection-cache");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns at once. Cancelling the returned future cancels the detection if it is still waiting in the queue.
+     */
+    public CompletableFuture<List<Detection>> detect(EditableImage editableImage) {
+        CompletableFuture<List<Detection>> result = new CompletableFuture<>();
+        executorService.execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+
+            try {
+                String hash = hash(editableImage.getContent());
+                String modelFingerprint = tfService.getModelFingerprint();
+                List<Detection> cachedDetections = modelFingerprint != null ? detectionCache.get(hash, modelFingerprint) : null;
+                if (cachedDetections != null) {
+                    result.complete(cachedDetections);
+                    return;
+                }
+
+                // the model input is small, the display image is usually big enough and nothing has to be decoded
+                int inputSize = tfService.getInputSize();
+                CompletableFuture<List<Detection>> detectionsFuture = tfService.detect(() -> editableImage.getImage(inputSize));
+                detectionsFuture.whenComplete((detections, throwable) -> {
+                    if (detectionsFuture.isCancelled()) {
+                        // dropped from the full detection queue
+                        result.cancel(false);
+                        return;
+                    }
+                    if (throwable != null) {
+                        result.completeExceptionally(throwable);
+                        return;
+                    }
+                    cache(modelFingerprint, List.of(hash), List.of(detections));
+                    result.complete(detections);
+                });
+                result.whenComplete((detections, throwable) -> {
+                    if (result.isCancelled()) {
+                        detectionsFuture.cancel(false);
+                    }
+                });
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @param hashes content hashes of the images, the detections are cached with them
+     */
+    public CompletableFuture<List<List<Detection>>> detectBatch(List<String> hashes, List<BufferedImage> images) {
+        String modelFingerprint = tfService.getModelFingerprint();
+        CompletableFuture<List<List<Detection>>> detectionsFuture = tfService.detectBatch(images);
+        detectionsFuture.thenAccept(detections -> cache(modelFingerprint, hashes, detections));
+        return detectionsFuture;
+    }
+
+    public boolean isCached(String hash) {
+        String modelFingerprint = tfService.getModelFingerprint();
+        return modelFingerprint != null && detectionCache.contains(hash, modelFingerprint);
+    }
+
+    public String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return String.format("%064x", new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Must not happen", e);
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    private void cache(String modelFingerprintAtSubmit, List<String> hashes, List<List<Detection>> detections) {
+        // the model may have been reloaded meanwhile, then it is unknown which one produced the detections
+        String modelFingerprint = tfService.getModelFingerprint();
+        if (modelFingerprint == null || (modelFingerprintAtSubmit != null && !Objects.equals(modelFingerprintAtSubmit, modelFingerprint))) {
+            return;
+        }
+
+        for (int i = 0; i < hashes.size(); ++i) {
+            detectionCache.put(hashes.get(i), modelFingerprint, detections.get(i));
+        }
+    }
+}
@@ -1,14 +1,13 @@
 package com.github.tornaia.jimglabel.gui.service;
 
 import com.github.tornaia.jimglabel.common.json.SerializerUtils;
-import com.github.tornaia.jimglabel.common.setting.UserSettings;
 import com.github.tornaia.jimglabel.common.setting.UserSettingsProvider;
 import com.github.tornaia.jimglabel.gui.domain.Annotation;
 import com.github.tornaia.jimglabel.gui.domain.DetectedObject;
 import com.github.tornaia.jimglabel.gui.domain.EditableImage;
 import com.github.tornaia.jimglabel.gui.domain.ObjectClass;
-import com.github.tornaia.jimglabel.gui.domain.ObjectClasses;
 import com.github.tornaia.jimglabel.gui.event.EditableImageEventPublisher;
+import com.github.tornaia.jimglabel.gui.util.FileUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,41 +15,38 @@ import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Locale;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Component
 public class ImageEditorService {
 
     private static final Logger LOG = LoggerFactory.getLogger(ImageEditorService.class);
 
-    private static final String CLASSES_FILENAME = "classes.json";
-
     private final UserSettingsProvider userSettingsProvider;
     private final EditableImageEventPublisher editableImageEventPublisher;
     private final SerializerUtils serializerUtils;
+    private final ImagePrefetcher imagePrefetcher;
+    private final SourceImageIndex sourceImageIndex;
+    private final AnnotationWriter annotationWriter;
+    private final ObjectClassCatalog objectClassCatalog;
 
     private EditableImage editableImage;
     private int currentImageIndex;
 
     @Autowired
-    public ImageEditorService(UserSettingsProvider userSettingsProvider, EditableImageEventPublisher editableImageEventPublisher, SerializerUtils serializerUtils) {
+    public ImageEditorService(UserSettingsProvider userSettingsProvider, EditableImageEventPublisher editableImageEventPublisher, SerializerUtils serializerUtils, ImagePrefetcher imagePrefetcher, SourceImageIndex sourceImageIndex, AnnotationWriter annotationWriter, ObjectClassCatalog objectClassCatalog) {
         this.userSettingsProvider = userSettingsProvider;
         this.editableImageEventPublisher = editableImageEventPublisher;
         this.serializerUtils = serializerUtils;
+        this.imagePrefetcher = imagePrefetcher;
+        this.sourceImageIndex = sourceImageIndex;
+        this.annotationWriter = annotationWriter;
+        this.objectClassCatalog = objectClassCatalog;
     }
 
     @EventListener(ContextRefreshedEvent.class)
@@ -70,10 +66,12 @@ public class ImageEditorService {
     public void deleteCurrentImage() {
         try {
             Files.delete(editableImage.getFile());
-            Files.deleteIfExists(getAnnotationFile());
         } catch (IOException e) {
             throw new IllegalStateException("Must not happen", e);
         }
+        annotationWriter.delete(editableImage.getFile());
+        imagePrefetcher.invalidate(editableImage.getFile());
+        sourceImageIndex.remove(editableImage.getFile());
 
         loadImage();
         editableImageEventPublisher.updateSelectedImage(editableImage);
@@ -97,12 +95,12 @@ public class ImageEditorService {
     }
 
     public void loadPreviousImage() {
-        currentImageIndex--;
+        currentImageIndex = getCurrentImageIndex() - 1;
         loadImage();
     }
 
     public void loadNextImage() {
-        currentImageIndex++;
+        currentImageIndex = getCurrentImageIndex() + 1;
         loadImage();
     }
 
@@ -131,48 +129,42 @@ public class ImageEditorService {
     }
 
     public List<ObjectClass> getClasses() {
-        UserSettings userSettings = userSettingsProvider.read();
-        String sourceDirectory = userSettings.getSourceDirectory();
-        Path classesJsonPath = Path.of(sourceDirectory).resolve(CLASSES_FILENAME);
-
-        String classesFileContent;
-        try {
-            classesFileContent = Files.readString(classesJsonPath);
-        } catch (IOException e) {
-            throw new IllegalStateException("Must not happen", e);
-        }
-
-        ObjectClasses objectClasses = serializerUtils.toObject(classesFileContent, ObjectClasses.class);
-        return objectClasses.getClasses();
+        return objectClassCatalog.getClasses();
     }
 
+    /**
+     * Waits until the source directory is fully scanned.
+     */
     public List<Path> getSourceImageFiles() {
         String sourceDirectory = getSourceDirectory();
-        if (sourceDirectory == null) {
-            return Collections.emptyList();
-        }
+        return sourceImageIndex.getAll(sourceDirectory != null ? Path.of(sourceDirectory) : null).getFiles();
+    }
 
-        try {
-            return Files.list(Path.of(sourceDirectory))
-                    .flatMap(f -> {
-                        try {
-                            return Files.isDirectory(f) ? Files.list(f) : Stream.of(f);
-                        } catch (IOException e) {
-                            throw new IllegalStateException("Must not happen", e);
-                        }
-                    })
-                    .filter(e -> e.getFileName().toString().toLowerCase(Locale.ENGLISH).endsWith(".jpg"))
-                    .sorted(Comparator.comparing(Path::toString))
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
-            throw new IllegalStateException("Must not happen", e);
+    /**
+     * Returns the images found so far, the source directory might still be being scanned.
+     */
+    public IndexedImages getIndexedImages() {
+        String sourceDirectory = getSourceDirectory();
+        return sourceImageIndex.get(sourceDirectory != null ? Path.of(sourceDirectory) : null);
+    }
+
+    /**
+     * Images are added while the source directory is being scanned, the position of the current image may change.
+     */
+    private int getCurrentImageIndex() {
+        if (editableImage == null) {
+            return currentImageIndex;
         }
+        int index = getIndexedImages().indexOf(editableImage.getFile());
+        return index != -1 ? index : currentImageIndex;
     }
 
     public void loadImage() {
+        // the edits of the previous image are written while this one loads
+        annotationWriter.flush();
         editableImage = null;
 
-        List<Path> imageFiles = getSourceImageFiles();
+        IndexedImages imageFiles = getIndexedImages();
 
         if (imageFiles.isEmpty()) {
             currentImageIndex = -1;
@@ -188,87 +180,49 @@ public class ImageEditorService {
         }
 
         Path currentImage = imageFiles.get(currentImageIndex);
-        byte[] content = getContent(currentImage);
-        BufferedImage bufferedImage = getBufferedImage(currentImage);
+        PrefetchedImage prefetchedImage = imagePrefetcher.get(currentImage);
+        imagePrefetcher.prefetch(imageFiles.getFiles(), currentImageIndex);
 
-        editableImage = new EditableImage(currentImage, bufferedImage, new ArrayList<>(), new ArrayList<>(), content);
-        Annotation annotation = getAnnotation();
+        editableImage = new EditableImage(currentImage, prefetchedImage.getDisplayImage(), prefetchedImage.getWidth(), prefetchedImage.getHeight(), new ArrayList<>(), new ArrayList<>(), prefetchedImage.getContent());
+        String pendingAnnotationContent = annotationWriter.getPendingContent(currentImage);
+        Annotation annotation = getAnnotation(pendingAnnotationContent != null ? pendingAnnotationContent : prefetchedImage.getAnnotationContent());
         editableImage.getDetectedObjects().addAll(annotation.getObjects());
 
         editableImageEventPublisher.updateSelectedImage(editableImage);
     }
 
-    private Annotation getAnnotation() {
-        Path annotationFile = getAnnotationFile();
-        boolean hasAnnotationFile = Files.isRegularFile(annotationFile);
-        if (hasAnnotationFile) {
-            String annotationContent;
-            try {
-                annotationContent = Files.readString(annotationFile);
-            } catch (IOException e) {
-                throw new IllegalStateException("Must not happen", e);
-            }
-
+    private Annotation getAnnotation(String annotationContent) {
+        if (annotationContent != null) {
             return serializerUtils.toObject(annotationContent, Annotation.class);
         }
 
         String currentImageFileName = editableImage.getFile().getFileName().toString();
         long size = editableImage.getContent().length;
-        BufferedImage bufferedImage = editableImage.getBufferedImage();
-        return new Annotation(currentImageFileName, size, bufferedImage.getWidth(), bufferedImage.getHeight(), new ArrayList<>());
+        return new Annotation(currentImageFileName, size, editableImage.getWidth(), editableImage.getHeight(), new ArrayList<>());
     }
 
     private Path getAnnotationFile() {
-        Path currentImage = editableImage.getFile();
-        String currentImageFileName = currentImage.getFileName().toString();
-        String annotationFileName = currentImageFileName.substring(0, currentImageFileName.lastIndexOf('.')) + ".json";
-        return currentImage.resolveSibling(annotationFileName);
+        return FileUtil.getAnnotationFile(editableImage.getFile());
     }
 
     private void updateAnnotationFile() {
         Path currentImage = editableImage.getFile();
         String currentImageFileName = currentImage.getFileName().toString();
-        BufferedImage bufferedImage = editableImage.getBufferedImage();
         List<DetectedObject> detectedObjects = editableImage.getDetectedObjects();
         long size = editableImage.getContent().length;
 
         Path annotationFile = getAnnotationFile();
-        Annotation annotation = new Annotation(currentImageFileName, size, bufferedImage.getWidth(), bufferedImage.getHeight(), detectedObjects);
+        Annotation annotation = new Annotation(currentImageFileName, size, editableImage.getWidth(), editableImage.getHeight(), detectedObjects);
         String annotationFileContent = serializerUtils.toJSON(annotation);
-        try {
-            Files.writeString(annotationFile, annotationFileContent, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SYNC);
-        } catch (IOException e) {
-            throw new IllegalStateException("Must not happen", e);
-        }
+        annotationWriter.write(currentImage, annotationFileContent);
+        imagePrefetcher.updateAnnotation(currentImage, annotationFileContent);
 
         Integer id = detectedObjects.size() > 0 ? detectedObjects.get(0).getId() : null;
-        List<ObjectClass> classes = getClasses();
-        ObjectClass objectClass = classes
-                .stream()
-                .filter(e -> e.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        ObjectClass objectClass = objectClassCatalog.getObjectClass(id);
         String name = objectClass != null ? objectClass.getName() : null;
         LOG.info("Annotation file updated: {}, name: {} ({})", annotationFile, name, id);
     }
 
-    private static BufferedImage getBufferedImage(Path imageFile) {
-        try {
-            byte[] content = getContent(imageFile);
-            return ImageIO.read(new ByteArrayInputStream(content));
-        } catch (IOException e) {
-            throw new IllegalStateException("Must not happen", e);
-        }
-    }
-
-    private static byte[] getContent(Path imageFile) {
-        try {
-            return Files.readAllBytes(imageFile);
-        } catch (IOException e) {
-            throw new IllegalStateException("Must not happen", e);
-        }
-    }
-
     public void forEachImage(Consumer<EditableImage> optimizer) {
         int startImageImage = currentImageIndex;
         while (true) {
@@ -0,0 +1,193 @@
+package com.github.tornaia.jimglabel.gui.service;
+
+import com.github.tornaia.jimglabel.gui.util.FileUtil;
+import com.github.tornaia.jimglabel.gui.util.ImageDecodeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads and decodes the neighbours of the current image in the background, so stepping to the next or previous
+ * image does not wait for the disk and the jpeg decoder. Decoded images are kept in the {@link DecodedImageCache},
+ * reads of images outside of the window are cancelled.
+ */
+@Component
+public class ImagePrefetcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ImagePrefetcher.class);
+
+    private final DecodedImageCache decodedImageCache;
+    private final int nextCount;
+    private final int previousCount;
+    private final Dimension displaySize;
+    private final ExecutorService executorService;
+    private final Map<Path, CompletableFuture<PrefetchedImage>> inFlightImages = new HashMap<>();
+
+    @Autowired
+    public ImagePrefetcher(DecodedImageCache decodedImageCache, @Value("${prefetch.next:3}") int nextCount, @Value("${prefetch.previous:1}") int previousCount, @Value("${prefetch.threads:2}") int threads, @Value("${image.display.max-width:0}") int displayWidth, @Value("${image.display.max-height:0}") int displayHeight) {
+        this.decodedImageCache = decodedImageCache;
+        this.nextCount = nextCount;
+        this.previousCount = previousCount;
+        this.displaySize = displayWidth > 0 && displayHeight > 0 ? new Dimension(displayWidth, displayHeight) : getScreenSize();
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executorService = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "image-prefetch-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        LOG.info("Prefetch next: {}, previous: {}, threads: {}, display size: {}x{}", nextCount, previousCount, threads, displaySize.width, displaySize.height);
+    }
+
+    /**
+     * Returns the cached image, waits for it if it is still being read, reads it on the caller thread if it was
+     * not prefetched or prefetching failed.
+     */
+    public PrefetchedImage get(Path imageFile) {
+        PrefetchedImage cachedImage = decodedImageCache.get(imageFile);
+        if (cachedImage != null) {
+            return cachedImage;
+        }
+
+        CompletableFuture<PrefetchedImage> future;
+        synchronized (inFlightImages) {
+            future = inFlightImages.get(imageFile);
+        }
+
+        if (future != null) {
+            try {
+                return future.join();
+            } catch (CancellationException | CompletionException e) {
+                LOG.debug("Prefetch failed, read again: {}", imageFile, e);
+            }
+        }
+
+        PrefetchedImage prefetchedImage = load(imageFile);
+        decodedImageCache.put(prefetchedImage);
+        return prefetchedImage;
+    }
+
+    /**
+     * Starts reading the neighbours of the current image that are not cached yet, the nearest first, and cancels
+     * the reads outside of the window. Navigation wraps around, so does the window.
+     */
+    public void prefetch(List<Path> imageFiles, int currentIndex) {
+        int size = imageFiles.size();
+        Set<Path> window = new LinkedHashSet<>();
+        window.add(imageFiles.get(currentIndex));
+        for (int i = 1; i <= Math.max(nextCount, previousCount); i++) {
+            if (i <= nextCount) {
+                window.add(imageFiles.get(Math.floorMod(currentIndex + i, size)));
+            }
+            if (i <= previousCount) {
+                window.add(imageFiles.get(Math.floorMod(currentIndex - i, size)));
+            }
+        }
+
+        synchronized (inFlightImages) {
+            inFlightImages.entrySet().removeIf(entry -> {
+                boolean outside = !window.contains(entry.getKey());
+                if (outside) {
+                    entry.getValue().cancel(false);
+                }
+                return outside;
+            });
+            for (Path imageFile : window) {
+                if (!inFlightImages.containsKey(imageFile) && !decodedImageCache.contains(imageFile)) {
+                    inFlightImages.put(imageFile, CompletableFuture.supplyAsync(() -> prefetch(imageFile), executorService));
+                }
+            }
+        }
+    }
+
+    /**
+     * Must be called when the annotation of the image was changed, the decoded image stays cached.
+     */
+    public void updateAnnotation(Path imageFile, String annotationContent) {
+        cancel(imageFile);
+        decodedImageCache.updateAnnotation(imageFile, annotationContent);
+    }
+
+    /**
+     * Must be called when the image was changed or deleted.
+     */
+    public void invalidate(Path imageFile) {
+        cancel(imageFile);
+        decodedImageCache.invalidate(imageFile);
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    private void cancel(Path imageFile) {
+        // a read in flight may have read the files before the change, it must not be cached
+        synchronized (inFlightImages) {
+            CompletableFuture<PrefetchedImage> future = inFlightImages.remove(imageFile);
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private PrefetchedImage prefetch(Path imageFile) {
+        PrefetchedImage prefetchedImage = null;
+        try {
+            prefetchedImage = load(imageFile);
+            return prefetchedImage;
+        } finally {
+            synchronized (inFlightImages) {
+                // not cached if it failed, was invalidated or left the window in the meantime
+                if (inFlightImages.remove(imageFile) != null && prefetchedImage != null) {
+                    decodedImageCache.put(prefetchedImage);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes only as many pixels as the screen can show, the full resolution image is decoded on demand.
+     */
+    private PrefetchedImage load(Path imageFile) {
+        try {
+            byte[] content = Files.readAllBytes(imageFile);
+            Dimension size = ImageDecodeUtil.readSize(content);
+            int subsampling = ImageDecodeUtil.getSubsampling(size.width, size.height, displaySize.width, displaySize.height);
+            BufferedImage displayImage = ImageDecodeUtil.decode(content, subsampling, null);
+            Path annotationFile = FileUtil.getAnnotationFile(imageFile);
+            String annotationContent = Files.isRegularFile(annotationFile) ? Files.readString(annotationFile) : null;
+            return new PrefetchedImage(imageFile, content, displayImage, size.width, size.height, annotationContent);
+        } catch (IOException e) {
+            throw new IllegalStateException("Must not happen", e);
+        }
+    }
+
+    private static Dimension getScreenSize() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new Dimension(1920, 1080);
+        }
+        Rectangle maximumWindowBounds = GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds();
+        return new Dimension(maximumWindowBounds.width, maximumWindowBounds.height);
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.tornaia.jimglabel.gui.service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the images of the source directory sorted by path, positions are looked up by binary search.
+ */
+public final class IndexedImages {
+
+    static final Comparator<Path> ORDER = Comparator.comparing(Path::toString);
+    static final IndexedImages EMPTY = new IndexedImages(null, Collections.emptyList());
+
+    private final Path directory;
+    private final List<Path> files;
+
+    IndexedImages(Path directory, List<Path> sortedFiles) {
+        this.directory = directory;
+        this.files = Collections.unmodifiableList(sortedFiles);
+    }
+
+    /**
+     * Only the changes are sorted, they are merged with the indexed files in a single pass.
+     *
+     * @param removed files or directories, a removed directory takes its images with it
+     */
+    IndexedImages update(Collection<Path> added, Collection<Path> removed) {
+        BitSet removedPositions = new BitSet(files.size());
+        for (Path removedPath : removed) {
+            int index = indexOf(removedPath);
+            if (index != -1) {
+                removedPositions.set(index);
+            }
+            // the images of a directory follow each other, they all start with the path of the directory
+            String prefix = removedPath.toString() + removedPath.getFileSystem().getSeparator();
+            for (int i = firstIndexNotBefore(prefix); i < files.size() && files.get(i).toString().startsWith(prefix); i++) {
+                removedPositions.set(i);
+            }
+        }
+
+        Path[] sortedAdded = added.toArray(new Path[0]);
+        Arrays.sort(sortedAdded, ORDER);
+        List<Path> updatedFiles = new ArrayList<>(files.size() + sortedAdded.length);
+        int i = 0;
+        int j = 0;
+        while (i < files.size() || j < sortedAdded.length) {
+            int comparison = i == files.size() ? 1 : j == sortedAdded.length ? -1 : ORDER.compare(files.get(i), sortedAdded[j]);
+            if (comparison < 0) {
+                if (!removedPositions.get(i)) {
+                    updatedFiles.add(files.get(i));
+                }
+                i++;
+            } else {
+                // an added file is kept even if it was removed before
+                if (comparison == 0) {
+                    i++;
+                }
+                updatedFiles.add(sortedAdded[j++]);
+            }
+        }
+        return new IndexedImages(directory, updatedFiles);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public List<Path> getFiles() {
+        return files;
+    }
+
+    public int size() {
+        return files.size();
+    }
+
+    public boolean isEmpty() {
+        return files.isEmpty();
+    }
+
+    public Path get(int index) {
+        return files.get(index);
+    }
+
+    /**
+     * @return -1 if the file is not indexed
+     */
+    public int indexOf(Path file) {
+        int index = Collections.binarySearch(files, file, ORDER);
+        return index >= 0 && files.get(index).equals(file) ? index : -1;
+    }
+
+    /**
+     * @return the next image, the first one after the last
+     */
+    public Path next(Path file) {
+        return neighbour(file, 1);
+    }
+
+    /**
+     * @return the previous image, the last one before the first
+     */
+    public Path previous(Path file) {
+        return neighbour(file, -1);
+    }
+
+    private Path neighbour(Path file, int step) {
+        int index = indexOf(file);
+        if (index == -1) {
+            return null;
+        }
+        return files.get(Math.floorMod(index + step, files.size()));
+    }
+
+    private int firstIndexNotBefore(String path) {
+        int low = 0;
+        int high = files.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (files.get(middle).toString().compareTo(path) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.tornaia.jimglabel.gui.service;
+
+import com.github.tornaia.jimglabel.common.json.SerializerUtils;
+import com.github.tornaia.jimglabel.common.setting.UserSettingsProvider;
+import com.github.tornaia.jimglabel.gui.domain.ObjectClass;
+import com.github.tornaia.jimglabel.gui.domain.ObjectClasses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The classes of {@code <source>/classes.json}, parsed once and indexed by id and card id. The file is parsed again
+ * when the source directory changes or the modification time or size of the file differs from the parsed one, the
+ * file is looked at once a second at most.
+ */
+@Component
+public class ObjectClassCatalog {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ObjectClassCatalog.class);
+
+    private static final String CLASSES_FILENAME = "classes.json";
+    private static final long CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final UserSettingsProvider userSettingsProvider;
+    private final SerializerUtils serializerUtils;
+
+    private Catalog catalog;
+    private long lastCheckNanos;
+
+    @Autowired
+    public ObjectClassCatalog(UserSettingsProvider userSettingsProvider, SerializerUtils serializerUtils) {
+        this.userSettingsProvider = userSettingsProvider;
+        this.serializerUtils = serializerUtils;
+    }
+
+    public List<ObjectClass> getClasses() {
+        return getCatalog().classes;
+    }
+
+    /**
+     * @return null if there is no class with the id
+     */
+    public ObjectClass getObjectClass(Integer id) {
+        return getCatalog().classesById.get(id);
+    }
+
+    /**
+     * @return null if there is no class with the card id
+     */
+    public ObjectClass getObjectClassByCardId(String cardId) {
+        return getCatalog().classesByCardId.get(cardId);
+    }
+
+    /**
+     * @return the position of the class in {@link #getClasses()}, -1 if there is no class with the id
+     */
+    public int indexOf(Integer id) {
+        return getCatalog().positionsById.getOrDefault(id, -1);
+    }
+
+    private synchronized Catalog getCatalog() {
+        String sourceDirectory = userSettingsProvider.read().getSourceDirectory();
+        Path classesJsonPath = Path.of(sourceDirectory).resolve(CLASSES_FILENAME);
+        long now = System.nanoTime();
+        if (catalog != null && catalog.file.equals(classesJsonPath) && now - lastCheckNanos < CHECK_INTERVAL_NANOS) {
+            return catalog;
+        }
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(classesJsonPath, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Must not happen", e);
+        }
+
+        if (catalog == null || !catalog.isUpToDate(classesJsonPath, attributes)) {
+            catalog = read(classesJsonPath, attributes);
+        }
+        lastCheckNanos = now;
+        return catalog;
+    }
+
+    private Catalog read(Path classesJsonPath, BasicFileAttributes attributes) {
+        String classesFileContent;
+        try {
+            classesFileContent = Files.readString(classesJsonPath);
+        } catch (IOException e) {
+            throw new IllegalStateException("Must not happen", e);
+        }
+
+        ObjectClasses objectClasses = serializerUtils.toObject(classesFileContent, ObjectClasses.class);
+        Catalog catalog = new Catalog(classesJsonPath, attributes.lastModifiedTime(), attributes.size(), objectClasses.getClasses());
+        LOG.info("Classes read: {}, count: {}", classesJsonPath, catalog.classes.size());
+        return catalog;
+    }
+
+    private static final class Catalog {
+
+        private final Path file;
+        private final FileTime lastModifiedTime;
+        private final long size;
+        private final List<ObjectClass> classes;
+        private final Map<Integer, ObjectClass> classesById = new HashMap<>();
+        private final Map<String, ObjectClass> classesByCardId = new HashMap<>();
+        private final Map<Integer, Integer> positionsById = new HashMap<>();
+
+        private Catalog(Path file, FileTime lastModifiedTime, long size, List<ObjectClass> classes) {
+            this.file = file;
+            this.lastModifiedTime = lastModifiedTime;
+            this.size = size;
+            this.classes = Collections.unmodifiableList(classes);
+            for (int i = 0; i < classes.size(); i++) {
+                ObjectClass objectClass = classes.get(i);
+                classesById.putIfAbsent(objectClass.getId(), objectClass);
+                classesByCardId.putIfAbsent(objectClass.getCardId(), objectClass);
+                positionsById.putIfAbsent(objectClass.getId(), i);
+            }
+        }
+
+        private boolean isUpToDate(Path file, BasicFileAttributes attributes) {
+            return this.file.equals(file) && lastModifiedTime.equals(attributes.lastModifiedTime()) && size == attributes.size();
+        }
+    }
+}
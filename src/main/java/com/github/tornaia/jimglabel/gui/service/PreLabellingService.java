@@ -0,0 +1,222 @@
+package com.github.tornaia.jimglabel.gui.service;
+
+import com.github.tornaia.jimglabel.common.clock.ClockService;
+import com.github.tornaia.jimglabel.common.event.EventPublisher;
+import com.github.tornaia.jimglabel.gui.event.PreLabellingProgressEvent;
+import com.github.tornaia.jimglabel.tf.ImagePreprocessor;
+import com.github.tornaia.jimglabel.tf.TFService;
+import com.github.tornaia.jimglabel.tf.TFServiceState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Analyzes every source image in the background so the detections are cached before the labeller gets there.
+ * Images are decoded and preprocessed on the pre-labelling thread while the previous batch is being analyzed.
+ * Batches are background work of the detection executor: the image on screen is analyzed before a waiting batch
+ * and is never cancelled because of one. Only one batch is queued at a time and the job sleeps between batches.
+ */
+@Component
+public class PreLabellingService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PreLabellingService.class);
+
+    private final ImageEditorService imageEditorService;
+    private final DetectionService detectionService;
+    private final TFService tfService;
+    private final ImagePreprocessor imagePreprocessor;
+    private final EventPublisher eventPublisher;
+    private final ClockService clockService;
+    private final int batchSize;
+    private final long pauseBetweenBatchesMs;
+
+    private final Object pauseLock = new Object();
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private volatile int total;
+    private volatile boolean paused;
+    private volatile Thread preLabellingThread;
+
+    @Autowired
+    public PreLabellingService(ImageEditorService imageEditorService, DetectionService detectionService, TFService tfService, ImagePreprocessor imagePreprocessor, EventPublisher eventPublisher, ClockService clockService, @Value("${prelabelling.batch-size:4}") int batchSize, @Value("${prelabelling.pause-between-batches-ms:250}") long pauseBetweenBatchesMs) {
+        this.imageEditorService = imageEditorService;
+        this.detectionService = detectionService;
+        this.tfService = tfService;
+        this.imagePreprocessor = imagePreprocessor;
+        this.eventPublisher = eventPublisher;
+        this.clockService = clockService;
+        this.batchSize = batchSize;
+        this.pauseBetweenBatchesMs = pauseBetweenBatchesMs;
+    }
+
+    public synchronized void start() {
+        if (isRunning()) {
+            return;
+        }
+
+        paused = false;
+        preLabellingThread = new Thread(this::preLabel, "pre-labelling");
+        preLabellingThread.setDaemon(true);
+        preLabellingThread.setPriority(Thread.MIN_PRIORITY);
+        preLabellingThread.start();
+    }
+
+    public void pause() {
+        paused = true;
+        publishProgress();
+    }
+
+    public void resume() {
+        synchronized (pauseLock) {
+            paused = false;
+            pauseLock.notifyAll();
+        }
+        publishProgress();
+    }
+
+    public boolean isRunning() {
+        Thread preLabellingThread = this.preLabellingThread;
+        return preLabellingThread != null && preLabellingThread.isAlive();
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        Thread preLabellingThread = this.preLabellingThread;
+        if (preLabellingThread != null) {
+            preLabellingThread.interrupt();
+        }
+    }
+
+    private void preLabel() {
+        long start = System.currentTimeMillis();
+        List<Path> imageFiles = imageEditorService.getSourceImageFiles();
+        total = imageFiles.size();
+        processed.set(0);
+        skipped.set(0);
+        publishProgress();
+
+        List<String> batchHashes = new ArrayList<>();
+        List<BufferedImage> batchImages = new ArrayList<>();
+        CompletableFuture<Void> previousBatch = CompletableFuture.completedFuture(null);
+        try {
+            // the cached detections belong to a model, they cannot be looked up before it is loaded
+            while (tfService.getState() == TFServiceState.LOADING) {
+                Thread.sleep(1000L);
+            }
+            if (tfService.getState() == TFServiceState.FAILED) {
+                LOG.warn("Model is not available, pre-labelling skipped");
+                return;
+            }
+
+            boolean downscale = tfService.getInputSize() > 0;
+            // tiled images are analyzed one by one anyway, batching them would only hold more full resolution images
+            int batchSize = downscale ? this.batchSize : 1;
+            for (Path imageFile : imageFiles) {
+                awaitResume();
+
+                String hash;
+                BufferedImage image;
+                try {
+                    byte[] content = Files.readAllBytes(imageFile);
+                    hash = detectionService.hash(content);
+                    if (detectionService.isCached(hash)) {
+                        processed.incrementAndGet();
+                        continue;
+                    }
+                    image = ImageIO.read(new ByteArrayInputStream(content));
+                } catch (IOException e) {
+                    // deleted or replaced since the scan, one image does not stop the job
+                    LOG.warn("Failed to read image, skipped: {}", imageFile, e);
+                    skip();
+                    continue;
+                }
+                if (image == null) {
+                    LOG.warn("Failed to decode image, skipped: {}", imageFile);
+                    skip();
+                    continue;
+                }
+
+                // keep only the downscaled image, a batch of full resolution images would cost hundreds of megabytes,
+                // unless the detection is tiled: the tiles are cut from the full resolution image
+                batchHashes.add(hash);
+                batchImages.add(downscale ? imagePreprocessor.preprocess(image) : image);
+                if (batchImages.size() == batchSize) {
+                    if (!awaitBatch(previousBatch)) {
+                        return;
+                    }
+                    previousBatch = analyzeBatch(batchHashes, batchImages);
+                    batchHashes = new ArrayList<>();
+                    batchImages = new ArrayList<>();
+                    Thread.sleep(pauseBetweenBatchesMs);
+                }
+            }
+
+            if (awaitBatch(previousBatch) && !batchImages.isEmpty()) {
+                awaitBatch(analyzeBatch(batchHashes, batchImages));
+            }
+            LOG.info("Pre-labelling of {} images finished in {} ms, skipped: {}", total, (System.currentTimeMillis() - start), skipped.get());
+        } catch (InterruptedException e) {
+            LOG.info("Pre-labelling stopped");
+        } finally {
+            preLabellingThread = null;
+            publishProgress();
+        }
+    }
+
+    private CompletableFuture<Void> analyzeBatch(List<String> hashes, List<BufferedImage> images) {
+        return detectionService.detectBatch(hashes, images).handle((detections, throwable) -> {
+            if (throwable != null) {
+                // these images are analyzed on the next run
+                LOG.warn("Failed to pre-label batch, skipped: {} images", hashes.size(), throwable);
+                skipped.addAndGet(hashes.size());
+            }
+            processed.addAndGet(hashes.size());
+            return null;
+        });
+    }
+
+    /**
+     * @return false if the model is not available, there is no point in going on
+     */
+    private boolean awaitBatch(CompletableFuture<Void> batch) {
+        batch.join();
+        publishProgress();
+        return tfService.getState() != TFServiceState.FAILED;
+    }
+
+    private void skip() {
+        skipped.incrementAndGet();
+        processed.incrementAndGet();
+    }
+
+    private void awaitResume() throws InterruptedException {
+        synchronized (pauseLock) {
+            while (paused) {
+                pauseLock.wait();
+            }
+        }
+    }
+
+    private void publishProgress() {
+        eventPublisher.publish(new PreLabellingProgressEvent(processed.get(), total, isRunning(), paused, clockService.now()));
+    }
+}
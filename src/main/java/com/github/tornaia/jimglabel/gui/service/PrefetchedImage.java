@@ -0,0 +1,65 @@
+package com.github.tornaia.jimglabel.gui.service;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+
+/**
+ * An image read and decoded for the screen ahead of time. The annotation is kept as json, the objects are mutable and
+ * every editable image needs its own copy.
+ */
+public final class PrefetchedImage {
+
+    private final Path file;
+    private final byte[] content;
+    private final BufferedImage displayImage;
+    private final int width;
+    private final int height;
+    private final String annotationContent;
+
+    /**
+     * @param width  of the full resolution image
+     * @param height of the full resolution image
+     */
+    public PrefetchedImage(Path file, byte[] content, BufferedImage displayImage, int width, int height, String annotationContent) {
+        this.file = file;
+        this.content = content;
+        this.displayImage = displayImage;
+        this.width = width;
+        this.height = height;
+        this.annotationContent = annotationContent;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public BufferedImage getDisplayImage() {
+        return displayImage;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return null if the image has no annotation file yet
+     */
+    public String getAnnotationContent() {
+        return annotationContent;
+    }
+
+    /**
+     * @return the same image with another annotation, the content and the pixels are shared
+     */
+    public PrefetchedImage withAnnotationContent(String annotationContent) {
+        return new PrefetchedImage(file, content, displayImage, width, height, annotationContent);
+    }
+}
@@ -0,0 +1,256 @@
+package com.github.tornaia.jimglabel.gui.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lists the images of the source directory tree once and keeps the listing up to date with a {@link WatchService},
+ * so navigation and the title bar do not list the directories again. The tree is scanned in the background and the
+ * images found so far are published every {@link #PUBLISH_INTERVAL_MS}, the first image can be shown before the
+ * scan finishes. An image replaced in place keeps its position, only its decoded copy is dropped from the cache.
+ */
+@Component
+public class SourceImageIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SourceImageIndex.class);
+
+    private static final long PUBLISH_INTERVAL_MS = 250L;
+
+    private final SourceImageScanner sourceImageScanner;
+    private final ImagePrefetcher imagePrefetcher;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private volatile IndexedImages indexedImages = IndexedImages.EMPTY;
+    private volatile CompletableFuture<Void> firstImageFound = CompletableFuture.completedFuture(null);
+    private volatile CompletableFuture<Void> scanFinished = CompletableFuture.completedFuture(null);
+    private WatchService watchService;
+
+    @Autowired
+    public SourceImageIndex(SourceImageScanner sourceImageScanner, ImagePrefetcher imagePrefetcher) {
+        this.sourceImageScanner = sourceImageScanner;
+        this.imagePrefetcher = imagePrefetcher;
+    }
+
+    /**
+     * Returns as soon as the first image is found, the images are added while the scan is running.
+     *
+     * @param sourceDirectory null if it is not set
+     */
+    public IndexedImages get(Path sourceDirectory) {
+        if (sourceDirectory == null) {
+            return IndexedImages.EMPTY;
+        }
+        IndexedImages indexedImages = this.indexedImages;
+        if (sourceDirectory.equals(indexedImages.getDirectory()) && firstImageFound.isDone()) {
+            return indexedImages;
+        }
+        start(sourceDirectory).firstImageFound.join();
+        return this.indexedImages;
+    }
+
+    /**
+     * Waits for the scan to finish.
+     *
+     * @param sourceDirectory null if it is not set
+     */
+    public IndexedImages getAll(Path sourceDirectory) {
+        if (sourceDirectory == null) {
+            return IndexedImages.EMPTY;
+        }
+        start(sourceDirectory).scanFinished.join();
+        return indexedImages;
+    }
+
+    /**
+     * Removes the file right away, the watcher would notice the deletion only later.
+     */
+    public synchronized void remove(Path file) {
+        apply(Set.of(), Set.of(file));
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public synchronized void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private synchronized SourceImageIndex start(Path sourceDirectory) {
+        if (sourceDirectory.equals(indexedImages.getDirectory())) {
+            return this;
+        }
+
+        watchedDirectories.keySet().forEach(WatchKey::cancel);
+        watchedDirectories.clear();
+        indexedImages = new IndexedImages(sourceDirectory, new ArrayList<>());
+        CompletableFuture<Void> firstImageFound = new CompletableFuture<>();
+        CompletableFuture<Void> scanFinished = new CompletableFuture<>();
+        this.firstImageFound = firstImageFound;
+        this.scanFinished = scanFinished;
+
+        Thread scannerThread = new Thread(() -> scan(sourceDirectory, firstImageFound, scanFinished), "source-image-scanner");
+        scannerThread.setDaemon(true);
+        scannerThread.start();
+        return this;
+    }
+
+    private void scan(Path sourceDirectory, CompletableFuture<Void> firstImageFound, CompletableFuture<Void> scanFinished) {
+        long start = System.currentTimeMillis();
+        ConcurrentLinkedQueue<Path> foundImages = new ConcurrentLinkedQueue<>();
+        AtomicLong lastPublish = new AtomicLong();
+        try {
+            sourceImageScanner.scan(sourceDirectory, sourceDirectory, directory -> watch(sourceDirectory, directory), imageFile -> {
+                foundImages.add(imageFile);
+                long now = System.currentTimeMillis();
+                long lastPublishTime = lastPublish.get();
+                if (!firstImageFound.isDone() || (now - lastPublishTime > PUBLISH_INTERVAL_MS && lastPublish.compareAndSet(lastPublishTime, now))) {
+                    publish(sourceDirectory, foundImages);
+                    firstImageFound.complete(null);
+                }
+            });
+            publish(sourceDirectory, foundImages);
+            LOG.info("Indexed {} images of {} in {} ms", indexedImages.size(), sourceDirectory, (System.currentTimeMillis() - start));
+        } finally {
+            firstImageFound.complete(null);
+            scanFinished.complete(null);
+        }
+    }
+
+    private void publish(Path sourceDirectory, ConcurrentLinkedQueue<Path> foundImages) {
+        Set<Path> added = new HashSet<>();
+        Path imageFile;
+        while ((imageFile = foundImages.poll()) != null) {
+            added.add(imageFile);
+        }
+
+        synchronized (this) {
+            // the source directory was changed in the meantime
+            if (sourceDirectory.equals(indexedImages.getDirectory())) {
+                apply(added, Set.of());
+            }
+        }
+    }
+
+    private synchronized void watch(Path sourceDirectory, Path directory) {
+        if (!sourceDirectory.equals(indexedImages.getDirectory())) {
+            // left over from the scan of the previous source directory
+            return;
+        }
+
+        try {
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+                Thread watcherThread = new Thread(this::processEvents, "source-image-watcher");
+                watcherThread.setDaemon(true);
+                watcherThread.start();
+            }
+            WatchKey watchKey = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchedDirectories.put(watchKey, directory);
+        } catch (IOException e) {
+            // the index is still correct, only changes made by other programs are not picked up
+            LOG.warn("Failed to watch directory: {}", directory, e);
+        }
+    }
+
+    private void processEvents() {
+        try {
+            while (true) {
+                WatchKey watchKey = watchService.take();
+                List<WatchEvent<?>> events = watchKey.pollEvents();
+                boolean valid = watchKey.reset();
+                Path sourceDirectory;
+                List<Path> createdDirectories;
+                synchronized (this) {
+                    sourceDirectory = indexedImages.getDirectory();
+                    createdDirectories = processEvents(watchKey, events);
+                    if (!valid) {
+                        watchedDirectories.remove(watchKey);
+                    }
+                }
+
+                // scanned without holding the lock, the scanner threads need it to watch the new directories
+                for (Path createdDirectory : createdDirectories) {
+                    ConcurrentLinkedQueue<Path> foundImages = new ConcurrentLinkedQueue<>();
+                    sourceImageScanner.scan(sourceDirectory, createdDirectory, directory -> watch(sourceDirectory, directory), foundImages::add);
+                    publish(sourceDirectory, foundImages);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            LOG.debug("Source image watcher stopped");
+        }
+    }
+
+    /**
+     * @return the created directories, they still have to be scanned
+     */
+    private List<Path> processEvents(WatchKey watchKey, List<WatchEvent<?>> events) {
+        Path directory = watchedDirectories.get(watchKey);
+        if (directory == null) {
+            // the source directory was changed in the meantime
+            return List.of();
+        }
+
+        Path sourceDirectory = indexedImages.getDirectory();
+        Set<Path> added = new HashSet<>();
+        Set<Path> removed = new HashSet<>();
+        List<Path> createdDirectories = new ArrayList<>();
+        for (WatchEvent<?> event : events) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                LOG.info("Too many changes in {}, index it again", sourceDirectory);
+                indexedImages = IndexedImages.EMPTY;
+                start(sourceDirectory);
+                return List.of();
+            }
+
+            Path file = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                removed.remove(file);
+                if (Files.isDirectory(file)) {
+                    if (!sourceImageScanner.isExcluded(sourceDirectory, file)) {
+                        createdDirectories.add(file);
+                    }
+                } else if (sourceImageScanner.isImageFile(sourceDirectory, file)) {
+                    added.add(file);
+                }
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                added.remove(file);
+                removed.add(file);
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_MODIFY && sourceImageScanner.isImageFile(sourceDirectory, file)) {
+                imagePrefetcher.invalidate(file);
+            }
+        }
+        apply(added, removed);
+        return createdDirectories;
+    }
+
+    private void apply(Set<Path> added, Set<Path> removed) {
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        indexedImages = indexedImages.update(added, removed);
+        LOG.debug("Source images added: {}, removed: {}, total: {}", added.size(), removed.size(), indexedImages.size());
+    }
+}
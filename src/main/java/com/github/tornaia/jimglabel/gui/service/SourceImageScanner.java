@@ -0,0 +1,133 @@
+package com.github.tornaia.jimglabel.gui.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Walks the source directory tree in parallel, one fork-join task per directory, and hands over every image as soon
+ * as it is found. Images are recognized by the file extension, only the extensions ImageIO has a reader for are
+ * accepted. Paths relative to the source directory matching an exclusion glob are skipped, excluded directories are
+ * not walked.
+ */
+@Component
+public class SourceImageScanner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SourceImageScanner.class);
+
+    private final Set<String> extensions;
+    private final List<PathMatcher> exclusions;
+    private final ForkJoinPool forkJoinPool;
+
+    @Autowired
+    public SourceImageScanner(@Value("${source.image.extensions:jpg,jpeg,png,webp}") String[] extensions, @Value("${source.image.exclusions:.*,**/.*}") String[] exclusions, @Value("${source.image.scan-threads:8}") int threads) {
+        List<String> readableSuffixes = Arrays.asList(ImageIO.getReaderFileSuffixes());
+        this.extensions = Arrays.stream(extensions)
+                .map(e -> e.trim().toLowerCase(Locale.ENGLISH))
+                .filter(e -> {
+                    boolean readable = readableSuffixes.contains(e);
+                    if (!readable) {
+                        LOG.warn("No image reader for extension: {}", e);
+                    }
+                    return readable;
+                })
+                .collect(Collectors.toUnmodifiableSet());
+        this.exclusions = Arrays.stream(exclusions)
+                .map(String::trim)
+                .filter(e -> !e.isEmpty())
+                .map(e -> FileSystems.getDefault().getPathMatcher("glob:" + e))
+                .collect(Collectors.toUnmodifiableList());
+        this.forkJoinPool = new ForkJoinPool(threads);
+        LOG.info("Image extensions: {}, exclusions: {}, scan threads: {}", this.extensions, Arrays.toString(exclusions), threads);
+    }
+
+    /**
+     * Blocks until the whole tree is walked. The consumers are called concurrently from the scanner threads.
+     *
+     * @param directoryConsumer called with every walked directory before it is listed, including the root
+     */
+    public void scan(Path root, Path directory, Consumer<Path> directoryConsumer, Consumer<Path> imageConsumer) {
+        forkJoinPool.invoke(new ScanTask(root, directory, directoryConsumer, imageConsumer));
+    }
+
+    public boolean isImageFile(Path root, Path file) {
+        String fileName = file.getFileName().toString();
+        int extensionIndex = fileName.lastIndexOf('.');
+        return extensionIndex != -1
+                && extensions.contains(fileName.substring(extensionIndex + 1).toLowerCase(Locale.ENGLISH))
+                && !isExcluded(root, file);
+    }
+
+    public boolean isExcluded(Path root, Path file) {
+        Path relativePath = root.relativize(file);
+        return exclusions.stream().anyMatch(e -> e.matches(relativePath));
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        forkJoinPool.shutdownNow();
+    }
+
+    private class ScanTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 4182457035623897466L;
+
+        private final Path root;
+        private final Path directory;
+        private final Consumer<Path> directoryConsumer;
+        private final Consumer<Path> imageConsumer;
+
+        private ScanTask(Path root, Path directory, Consumer<Path> directoryConsumer, Consumer<Path> imageConsumer) {
+            this.root = root;
+            this.directory = directory;
+            this.directoryConsumer = directoryConsumer;
+            this.imageConsumer = imageConsumer;
+        }
+
+        @Override
+        protected void compute() {
+            directoryConsumer.accept(directory);
+
+            List<ScanTask> subdirectoryTasks = new ArrayList<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    if (Files.isDirectory(file)) {
+                        if (!isExcluded(root, file)) {
+                            ScanTask subdirectoryTask = new ScanTask(root, file, directoryConsumer, imageConsumer);
+                            subdirectoryTask.fork();
+                            subdirectoryTasks.add(subdirectoryTask);
+                        }
+                    } else if (isImageFile(root, file)) {
+                        imageConsumer.accept(file);
+                    }
+                }
+            } catch (IOException e) {
+                // e.g. deleted while walking or no permission, the rest of the tree is still worth listing
+                LOG.warn("Failed to list directory: {}", directory, e);
+            }
+
+            subdirectoryTasks.forEach(ScanTask::join);
+        }
+    }
+}
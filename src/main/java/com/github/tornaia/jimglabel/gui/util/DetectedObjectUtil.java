@@ -1,231 +1,37 @@
 package com.github.tornaia.jimglabel.gui.util;
 
-import com.github.tornaia.jimglabel.gui.domain.DetectedObject;
-
-import java.awt.*;
-
 public final class DetectedObjectUtil {
 
     public static final int CONTROL_SIZE_RADIUS = 5;
 
-    private static final int CONTROL_SIZE_RADIUS2 = CONTROL_SIZE_RADIUS + 5;
-
-    private DetectedObjectUtil() {
-    }
-
-    public static boolean isSelected(Image scaledImage, DetectedObject object, Point point) {
-        return isTopLeftControl(scaledImage, object, point) ||
-                isTopControl(scaledImage, object, point) ||
-                isTopRightControl(scaledImage, object, point) ||
-                isLeftControl(scaledImage, object, point) ||
-                isMoveControl(scaledImage, object, point) ||
-                isRightControl(scaledImage, object, point) ||
-                isBottomLeftControl(scaledImage, object, point) ||
-                isBottomControl(scaledImage, object, point) ||
-                isBottomRightControl(scaledImage, object, point);
-    }
-
-    public static boolean isTopLeftControl(Image scaledImage, DetectedObject object, Point point) {
-        double px = point.x;
-        double py = point.y;
-
-        float top = object.getTop();
-        float right = object.getRight();
-        float bottom = object.getBottom();
-        float left = object.getLeft();
-        float x0 = scaledImage.getWidth(null) * left;
-        float y0 = scaledImage.getHeight(null) * top;
-        float x1 = scaledImage.getWidth(null) * right;
-        float y1 = scaledImage.getHeight(null) * bottom;
-
-        return Math.hypot(px - x0, py - y0) < CONTROL_SIZE_RADIUS2;
-    }
-
-    public static boolean isTopControl(Image scaledImage, DetectedObject object, Point point) {
-        double px = point.x;
-        double py = point.y;
-
-        float top = object.getTop();
-        float right = object.getRight();
-        float bottom = object.getBottom();
-        float left = object.getLeft();
-        float x0 = scaledImage.getWidth(null) * left;
-        float y0 = scaledImage.getHeight(null) * top;
-        float x1 = scaledImage.getWidth(null) * right;
-        float y1 = scaledImage.getHeight(null) * bottom;
-
-        return Math.hypot(px - ((x0 + x1) / 2), py - y0) < CONTROL_SIZE_RADIUS2;
-    }
-
-    public static boolean isTopRightControl(Image scaledImage, DetectedObject object, Point point) {
-        double px = point.x;
-        double py = point.y;
-
-        float top = object.getTop();
-        float right = object.getRight();
-        float bottom = object.getBottom();
-        float left = object.getLeft();
-        float x0 = scaledImage.getWidth(null) * left;
-        float y0 = scaledImage.getHeight(null) * top;
-        float x1 = scaledImage.getWidth(null) * right;
-        float y1 = scaledImage.getHeight(null) * bottom;
-
-        return Math.hypot(px - x1, py - y0) < CONTROL_SIZE_RADIUS2;
-    }
-
-    public static boolean isLeftControl(Image scaledImage, DetectedObject object, Point point) {
-        double px = point.x;
-        double py = point.y;
-
-        float top = object.getTop();
-        float right = object.getRight();
-        float bottom = object.getBottom();
-        float left = object.getLeft();
-        float x0 = scaledImage.getWidth(null) * left;
-        float y0 = scaledImage.getHeight(null) * top;
-        float x1 = scaledImage.getWidth(null) * right;
-        float y1 = scaledImage.getHeight(null) * bottom;
-
-        return Math.hypot(px - x0, py - ((y0 + y1) / 2)) < CONTROL_SIZE_RADIUS2;
-    }
-
-    public static boolean isMoveControl(Image scaledImage, DetectedObject object, Point point) {
-        double px = point.x;
-        double py = point.y;
-
-        float top = object.getTop();
-        float right = object.getRight();
-        float bottom = object.getBottom();
-        float left = object.getLeft();
-        float x0 = scaledImage.getWidth(null) * left;
-        float y0 = scaledImage.getHeight(null) * top;
-        float x1 = scaledImage.getWidth(null) * right;
-        float y1 = scaledImage.getHeight(null) * bottom;
-
-        return Math.hypot(px - ((x0 + x1) / 2), py - ((y0 + y1) / 2)) < CONTROL_SIZE_RADIUS2;
-    }
-
-    public static boolean isRightControl(Image scaledImage, DetectedObject object, Point point) {
-        double px = point.x;
-        double py = point.y;
+    public static final int CONTROL_SIZE_RADIUS2 = CONTROL_SIZE_RADIUS + 5;
 
-        float top = object.getTop();
-        float right = object.getRight();
-        float bottom = object.getBottom();
-        float left = object.getLeft();
-        float x0 = scaledImage.getWidth(null) * left;
-        float y0 = scaledImage.getHeight(null) * top;
-        float x1 = scaledImage.getWidth(null) * right;
-        float y1 = scaledImage.getHeight(null) * bottom;
+    private static final float CONTROL_SIZE_RADIUS2_SQUARED = (float) CONTROL_SIZE_RADIUS2 * CONTROL_SIZE_RADIUS2;
+    // row by row, in the order of the enum
+    private static final ObjectControl[] OBJECT_CONTROLS = ObjectControl.values();
 
-        return Math.hypot(px - x1, py - ((y0 + y1) / 2)) < CONTROL_SIZE_RADIUS2;
-    }
-
-    public static boolean isBottomLeftControl(Image scaledImage, DetectedObject object, Point point) {
-        double px = point.x;
-        double py = point.y;
-
-        float top = object.getTop();
-        float right = object.getRight();
-        float bottom = object.getBottom();
-        float left = object.getLeft();
-        float x0 = scaledImage.getWidth(null) * left;
-        float y0 = scaledImage.getHeight(null) * top;
-        float x1 = scaledImage.getWidth(null) * right;
-        float y1 = scaledImage.getHeight(null) * bottom;
-
-        return Math.hypot(px - x0, py - y1) < CONTROL_SIZE_RADIUS2;
-    }
-
-    public static boolean isBottomControl(Image scaledImage, DetectedObject object, Point point) {
-        double px = point.x;
-        double py = point.y;
-
-        float top = object.getTop();
-        float right = object.getRight();
-        float bottom = object.getBottom();
-        float left = object.getLeft();
-        float x0 = scaledImage.getWidth(null) * left;
-        float y0 = scaledImage.getHeight(null) * top;
-        float x1 = scaledImage.getWidth(null) * right;
-        float y1 = scaledImage.getHeight(null) * bottom;
-
-        return Math.hypot(px - ((x0 + x1) / 2), py - y1) < CONTROL_SIZE_RADIUS2;
-    }
-
-    public static boolean isBottomRightControl(Image scaledImage, DetectedObject object, Point point) {
-        double px = point.x;
-        double py = point.y;
-
-        float top = object.getTop();
-        float right = object.getRight();
-        float bottom = object.getBottom();
-        float left = object.getLeft();
-        float x0 = scaledImage.getWidth(null) * left;
-        float y0 = scaledImage.getHeight(null) * top;
-        float x1 = scaledImage.getWidth(null) * right;
-        float y1 = scaledImage.getHeight(null) * bottom;
-
-        return Math.hypot(px - x1, py - y1) < CONTROL_SIZE_RADIUS2;
-    }
-
-    public static boolean isObjectArea(Image scaledImage, DetectedObject object, Point point) {
-        double px = point.x;
-        double py = point.y;
-
-        float top = object.getTop();
-        float right = object.getRight();
-        float bottom = object.getBottom();
-        float left = object.getLeft();
-        float x0 = scaledImage.getWidth(null) * left;
-        float y0 = scaledImage.getHeight(null) * top;
-        float x1 = scaledImage.getWidth(null) * right;
-        float y1 = scaledImage.getHeight(null) * bottom;
-
-        return px > x0 && px < x1 && py > y0 && py < y1;
+    private DetectedObjectUtil() {
     }
 
-    public static ObjectControl getSelectedObjectControl(Image scaledImage, DetectedObject object, Point point) {
-        if (object == null) {
-            return null;
-        }
-
-        if (isTopLeftControl(scaledImage, object, point)) {
-            return ObjectControl.TOP_LEFT;
-        }
-
-        if (isTopControl(scaledImage, object, point)) {
-            return ObjectControl.TOP;
-        }
-
-        if (isTopRightControl(scaledImage, object, point)) {
-            return ObjectControl.TOP_RIGHT;
-        }
-
-        if (isLeftControl(scaledImage, object, point)) {
-            return ObjectControl.LEFT;
-        }
-
-        if (isMoveControl(scaledImage, object, point)) {
-            return ObjectControl.MOVE;
-        }
-
-        if (isRightControl(scaledImage, object, point)) {
-            return ObjectControl.RIGHT;
-        }
-
-        if (isBottomLeftControl(scaledImage, object, point)) {
-            return ObjectControl.BOTTOM_LEFT;
-        }
-
-        if (isBottomControl(scaledImage, object, point)) {
-            return ObjectControl.BOTTOM;
-        }
-
-        if (isBottomRightControl(scaledImage, object, point)) {
-            return ObjectControl.BOTTOM_RIGHT;
-        }
-
-        return null;
+    /**
+     * Nearest control of a rectangle in view coordinates, the geometry is computed once. The nearest control is the
+     * one in the nearest column and the nearest row, on a tie the first one in the order of {@link ObjectControl} wins.
+     *
+     * @return null if no control is within {@link #CONTROL_SIZE_RADIUS2} of the point
+     */
+    public static ObjectControl getObjectControl(float x0, float y0, float x1, float y1, float px, float py) {
+        float dx0 = Math.abs(px - x0);
+        float dx1 = Math.abs(px - (x0 + x1) / 2);
+        float dx2 = Math.abs(px - x1);
+        float dy0 = Math.abs(py - y0);
+        float dy1 = Math.abs(py - (y0 + y1) / 2);
+        float dy2 = Math.abs(py - y1);
+
+        int column = dx1 < dx0 ? (dx2 < dx1 ? 2 : 1) : (dx2 < dx0 ? 2 : 0);
+        int row = dy1 < dy0 ? (dy2 < dy1 ? 2 : 1) : (dy2 < dy0 ? 2 : 0);
+        float dx = column == 0 ? dx0 : column == 1 ? dx1 : dx2;
+        float dy = row == 0 ? dy0 : row == 1 ? dy1 : dy2;
+
+        return dx * dx + dy * dy < CONTROL_SIZE_RADIUS2_SQUARED ? OBJECT_CONTROLS[row * 3 + column] : null;
     }
 }
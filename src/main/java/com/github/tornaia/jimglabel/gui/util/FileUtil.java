@@ -1,5 +1,6 @@
 package com.github.tornaia.jimglabel.gui.util;
 
+import java.nio.file.Path;
 import java.text.DecimalFormat;
 
 public final class FileUtil {
@@ -18,4 +19,13 @@ public final class FileUtil {
         int digitGroups = (int) (Math.log10(size) / Math.log10(1024));
         return new DecimalFormat("#,##0.##").format(size / Math.pow(1024, digitGroups)) + " " + units[digitGroups];
     }
+
+    /**
+     * The annotation of an image is stored next to it with the same name and a json extension.
+     */
+    public static Path getAnnotationFile(Path imageFile) {
+        String imageFileName = imageFile.getFileName().toString();
+        String annotationFileName = imageFileName.substring(0, imageFileName.lastIndexOf('.')) + ".json";
+        return imageFile.resolveSibling(annotationFileName);
+    }
 }
@@ -0,0 +1,72 @@
+package com.github.tornaia.jimglabel.gui.util;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Decodes images at a lower resolution or only a region of them. The JPEG reader skips the pixels left out by the
+ * subsampling, so decoding a 12 MP image for a 1000 px panel is several times faster than a full decode and scaling.
+ */
+public final class ImageDecodeUtil {
+
+    private ImageDecodeUtil() {
+    }
+
+    /**
+     * Reads only the header of the image.
+     */
+    public static Dimension readSize(byte[] content) throws IOException {
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(new ByteArrayInputStream(content))) {
+            ImageReader imageReader = getImageReader(imageInputStream);
+            try {
+                return new Dimension(imageReader.getWidth(0), imageReader.getHeight(0));
+            } finally {
+                imageReader.dispose();
+            }
+        }
+    }
+
+    /**
+     * @param subsampling only every n-th pixel of every n-th row is decoded
+     * @param region      in full resolution pixels, null for the whole image
+     */
+    public static BufferedImage decode(byte[] content, int subsampling, Rectangle region) throws IOException {
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(new ByteArrayInputStream(content))) {
+            ImageReader imageReader = getImageReader(imageInputStream);
+            try {
+                ImageReadParam imageReadParam = imageReader.getDefaultReadParam();
+                imageReadParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                if (region != null) {
+                    imageReadParam.setSourceRegion(region);
+                }
+                return imageReader.read(0, imageReadParam);
+            } finally {
+                imageReader.dispose();
+            }
+        }
+    }
+
+    /**
+     * @return the largest subsampling that still gives an image covering the target size
+     */
+    public static int getSubsampling(int width, int height, int targetWidth, int targetHeight) {
+        return Math.max(1, Math.min(width / Math.max(1, targetWidth), height / Math.max(1, targetHeight)));
+    }
+
+    private static ImageReader getImageReader(ImageInputStream imageInputStream) throws IOException {
+        Iterator<ImageReader> imageReaders = ImageIO.getImageReaders(imageInputStream);
+        if (!imageReaders.hasNext()) {
+            throw new IOException("No image reader found");
+        }
+        ImageReader imageReader = imageReaders.next();
+        imageReader.setInput(imageInputStream, true, true);
+        return imageReader;
+    }
+}
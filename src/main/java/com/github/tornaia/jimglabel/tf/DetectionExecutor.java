@@ -0,0 +1,127 @@
+package com.github.tornaia.jimglabel.tf;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the detections on a fixed number of threads. Detections of the image on screen run before the background work
+ * (pre-labelling) waiting in the queue. When the queue of the former is full the oldest waiting one is cancelled: it
+ * belongs to an image the user has already navigated away from. Background work is never cancelled to make room for
+ * them. Requests cancelled by the caller while waiting in the queue are skipped.
+ */
+@Component
+public class DetectionExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DetectionExecutor.class);
+
+    private final int queueCapacity;
+    private final PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ThreadPoolExecutor threadPoolExecutor;
+
+    @Autowired
+    public DetectionExecutor(@Value("${tf.detection.threads:1}") int threads, @Value("${tf.detection.queue-capacity:4}") int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.threadPoolExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "tf-detection-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        LOG.info("Detection threads: {}, queue capacity: {}", threads, queueCapacity);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> detection) {
+        return submit(detection, false);
+    }
+
+    /**
+     * Runs after every detection submitted with {@link #submit(Supplier)} waiting in the queue.
+     */
+    public <T> CompletableFuture<T> submitBackground(Supplier<T> detection) {
+        return submit(detection, true);
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        threadPoolExecutor.shutdownNow();
+    }
+
+    private synchronized <T> CompletableFuture<T> submit(Supplier<T> detection, boolean background) {
+        if (!background) {
+            cancelStaleDetections();
+        }
+        DetectionTask<T> detectionTask = new DetectionTask<>(detection, background, sequence.incrementAndGet());
+        threadPoolExecutor.execute(detectionTask);
+        return detectionTask.future;
+    }
+
+    private void cancelStaleDetections() {
+        queue.removeIf(e -> ((DetectionTask<?>) e).future.isDone());
+        List<DetectionTask<?>> waitingDetections = queue
+                .stream()
+                .map(e -> (DetectionTask<?>) e)
+                .filter(e -> !e.background)
+                .sorted()
+                .collect(Collectors.toList());
+        // makes room for the new one
+        for (int i = 0; i <= waitingDetections.size() - queueCapacity; ++i) {
+            DetectionTask<?> staleDetection = waitingDetections.get(i);
+            if (queue.remove(staleDetection)) {
+                LOG.debug("Queue is full, cancel stale detection");
+                staleDetection.future.cancel(false);
+            }
+        }
+    }
+
+    private static class DetectionTask<T> implements Runnable, Comparable<DetectionTask<?>> {
+
+        private final Supplier<T> detection;
+        private final boolean background;
+        private final long sequence;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private DetectionTask(Supplier<T> detection, boolean background, long sequence) {
+            this.detection = detection;
+            this.background = background;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                return;
+            }
+
+            try {
+                future.complete(detection.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public int compareTo(DetectionTask<?> other) {
+            // detections of the image on screen first, first come first served within the same kind
+            if (background != other.background) {
+                return background ? 1 : -1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
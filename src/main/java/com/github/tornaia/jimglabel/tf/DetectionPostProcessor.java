@@ -0,0 +1,27 @@
+package com.github.tornaia.jimglabel.tf;
+
+import com.github.tornaia.jimglabel.gui.domain.ObjectClass;
+
+import java.util.List;
+
+public interface DetectionPostProcessor {
+
+    /**
+     * @return the settings that change the result, part of the model fingerprint
+     */
+    String getSettings();
+
+    /**
+     * @param scores  scores of the whole batch, {@code count} slots of the image start at {@code offset}
+     * @param classes model class ids of the whole batch, same layout as the scores
+     * @param boxes   top, left, bottom, right of the whole batch, four values per slot
+     * @param scaleY  scales the normalized boxes from the padded batch back to the image
+     * @param labels  object classes indexed by model class id
+     */
+    List<Detection> process(float[] scores, float[] classes, float[] boxes, int offset, int count, float scaleY, float scaleX, ObjectClass[] labels);
+
+    /**
+     * Merges detections of overlapping views of the same image (e.g. tiles), already in image coordinates.
+     */
+    List<Detection> merge(List<Detection> detections);
+}
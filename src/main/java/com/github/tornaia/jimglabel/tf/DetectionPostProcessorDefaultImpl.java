@@ -0,0 +1,177 @@
+package com.github.tornaia.jimglabel.tf;
+
+import com.github.tornaia.jimglabel.gui.domain.ObjectClass;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Turns the raw model outputs into detections: score threshold, class-aware non-max suppression and top-K, all on the
+ * flat output arrays. {@link Detection}s are created only for the survivors. When nothing passes the threshold the
+ * single best slot is kept if it is above the fallback score, a weak hint is still better than nothing to label.
+ */
+@Component
+public class DetectionPostProcessorDefaultImpl implements DetectionPostProcessor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DetectionPostProcessorDefaultImpl.class);
+
+    private final float minScore;
+    private final float fallbackMinScore;
+    private final float iouThreshold;
+    private final int maxDetections;
+
+    @Autowired
+    public DetectionPostProcessorDefaultImpl(@Value("${tf.detection.min-score:0.5}") float minScore, @Value("${tf.detection.fallback-min-score:0.02}") float fallbackMinScore, @Value("${tf.detection.nms-iou-threshold:0.5}") float iouThreshold, @Value("${tf.detection.max-detections:20}") int maxDetections) {
+        this.minScore = minScore;
+        this.fallbackMinScore = fallbackMinScore;
+        this.iouThreshold = iouThreshold;
+        this.maxDetections = maxDetections;
+        LOG.info("Detection post-processing: {}", getSettings());
+    }
+
+    @Override
+    public String getSettings() {
+        return String.format("minScore=%s, fallbackMinScore=%s, iouThreshold=%s, maxDetections=%s", minScore, fallbackMinScore, iouThreshold, maxDetections);
+    }
+
+    @Override
+    public List<Detection> process(float[] scores, float[] classes, float[] boxes, int offset, int count, float scaleY, float scaleX, ObjectClass[] labels) {
+        int[] candidates = new int[count];
+        int candidateCount = 0;
+        int best = -1;
+        for (int i = offset; i < offset + count; ++i) {
+            float score = scores[i];
+            if (score > minScore) {
+                candidates[candidateCount++] = i;
+            }
+            if (best == -1 || score > scores[best]) {
+                best = i;
+            }
+        }
+
+        if (candidateCount == 0) {
+            List<Detection> result = new ArrayList<>(1);
+            if (best != -1 && scores[best] > fallbackMinScore) {
+                result.add(toDetection(scores, classes, boxes, best, scaleY, scaleX, labels));
+            }
+            return result;
+        }
+
+        sortByScoreDescending(candidates, candidateCount, scores);
+
+        int[] kept = new int[Math.min(candidateCount, maxDetections)];
+        int keptCount = 0;
+        for (int c = 0; c < candidateCount && keptCount < kept.length; ++c) {
+            int candidate = candidates[c];
+            boolean suppressed = false;
+            for (int k = 0; k < keptCount && !suppressed; ++k) {
+                int keep = kept[k];
+                suppressed = classes[keep] == classes[candidate] && iou(boxes, keep, candidate, scaleY, scaleX) > iouThreshold;
+            }
+            if (!suppressed) {
+                kept[keptCount++] = candidate;
+            }
+        }
+
+        List<Detection> result = new ArrayList<>(keptCount);
+        for (int k = 0; k < keptCount; ++k) {
+            result.add(toDetection(scores, classes, boxes, kept[k], scaleY, scaleX, labels));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Detection> merge(List<Detection> detections) {
+        List<Detection> candidates = detections
+                .stream()
+                .filter(e -> e.getScore() > minScore)
+                .sorted(Comparator.comparing(Detection::getScore).reversed())
+                .collect(Collectors.toList());
+
+        List<Detection> result = new ArrayList<>();
+        if (candidates.isEmpty()) {
+            detections
+                    .stream()
+                    .filter(e -> e.getScore() > fallbackMinScore)
+                    .max(Comparator.comparing(Detection::getScore))
+                    .ifPresent(result::add);
+            return result;
+        }
+
+        for (Detection candidate : candidates) {
+            if (result.size() == maxDetections) {
+                break;
+            }
+            boolean suppressed = result
+                    .stream()
+                    .anyMatch(e -> e.getId() == candidate.getId() && iou(e, candidate) > iouThreshold);
+            if (!suppressed) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    private static float iou(Detection a, Detection b) {
+        float intersectionHeight = Math.min(a.getBottom(), b.getBottom()) - Math.max(a.getTop(), b.getTop());
+        float intersectionWidth = Math.min(a.getRight(), b.getRight()) - Math.max(a.getLeft(), b.getLeft());
+        if (intersectionHeight <= 0F || intersectionWidth <= 0F) {
+            return 0F;
+        }
+
+        float intersection = intersectionHeight * intersectionWidth;
+        float areaA = (a.getBottom() - a.getTop()) * (a.getRight() - a.getLeft());
+        float areaB = (b.getBottom() - b.getTop()) * (b.getRight() - b.getLeft());
+        return intersection / (areaA + areaB - intersection);
+    }
+
+    private static Detection toDetection(float[] scores, float[] classes, float[] boxes, int i, float scaleY, float scaleX, ObjectClass[] labels) {
+        int clazz = (int) classes[i];
+        ObjectClass objectClass = clazz >= 0 && clazz < labels.length ? labels[clazz] : null;
+        if (objectClass == null) {
+            throw new IllegalStateException("Must not happen, unknown class: " + clazz);
+        }
+
+        float top = Math.min(1F, boxes[i * 4] * scaleY);
+        float left = Math.min(1F, boxes[i * 4 + 1] * scaleX);
+        float bottom = Math.min(1F, boxes[i * 4 + 2] * scaleY);
+        float right = Math.min(1F, boxes[i * 4 + 3] * scaleX);
+        return new Detection(top, left, bottom, right, objectClass.getId(), objectClass.getCardId(), objectClass.getName(), scores[i]);
+    }
+
+    private static float iou(float[] boxes, int a, int b, float scaleY, float scaleX) {
+        float intersectionHeight = (Math.min(boxes[a * 4 + 2], boxes[b * 4 + 2]) - Math.max(boxes[a * 4], boxes[b * 4])) * scaleY;
+        float intersectionWidth = (Math.min(boxes[a * 4 + 3], boxes[b * 4 + 3]) - Math.max(boxes[a * 4 + 1], boxes[b * 4 + 1])) * scaleX;
+        if (intersectionHeight <= 0F || intersectionWidth <= 0F) {
+            return 0F;
+        }
+
+        float intersection = intersectionHeight * intersectionWidth;
+        float areaA = (boxes[a * 4 + 2] - boxes[a * 4]) * scaleY * (boxes[a * 4 + 3] - boxes[a * 4 + 1]) * scaleX;
+        float areaB = (boxes[b * 4 + 2] - boxes[b * 4]) * scaleY * (boxes[b * 4 + 3] - boxes[b * 4 + 1]) * scaleX;
+        return intersection / (areaA + areaB - intersection);
+    }
+
+    /**
+     * Insertion sort, the model returns the slots almost sorted already.
+     */
+    private static void sortByScoreDescending(int[] indexes, int count, float[] scores) {
+        for (int i = 1; i < count; ++i) {
+            int index = indexes[i];
+            float score = scores[index];
+            int j = i - 1;
+            while (j >= 0 && scores[indexes[j]] < score) {
+                indexes[j + 1] = indexes[j];
+                j--;
+            }
+            indexes[j + 1] = index;
+        }
+    }
+}
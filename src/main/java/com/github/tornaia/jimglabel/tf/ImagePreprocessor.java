@@ -0,0 +1,16 @@
+package com.github.tornaia.jimglabel.tf;
+
+import java.awt.image.BufferedImage;
+
+public interface ImagePreprocessor {
+
+    /**
+     * @return the image scaled to the input resolution of the model, the input image itself if it is small enough
+     */
+    BufferedImage preprocess(BufferedImage inputImage);
+
+    /**
+     * @return the longest side of the preprocessed images
+     */
+    int getMaxInputSize();
+}
@@ -0,0 +1,65 @@
+package com.github.tornaia.jimglabel.tf;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Downscales the input images to (about) the native input resolution of the model before the tensor is created.
+ * The aspect ratio is kept and the detections are normalized, so the boxes are valid for the original image as is.
+ */
+@Component
+public class ImagePreprocessorDefaultImpl implements ImagePreprocessor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ImagePreprocessorDefaultImpl.class);
+
+    private final int maxInputSize;
+
+    @Autowired
+    public ImagePreprocessorDefaultImpl(@Value("${tf.input.max-size:1024}") int maxInputSize) {
+        this.maxInputSize = maxInputSize;
+        LOG.info("Max input size: {}", maxInputSize);
+    }
+
+    @Override
+    public BufferedImage preprocess(BufferedImage inputImage) {
+        int width = inputImage.getWidth();
+        int height = inputImage.getHeight();
+        double scale = (double) maxInputSize / Math.max(width, height);
+        if (scale >= 1D) {
+            return inputImage;
+        }
+
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        // halve in multiple bilinear steps, a single bilinear step from a far bigger image aliases badly
+        BufferedImage result = inputImage;
+        while (width / 2 >= targetWidth && height / 2 >= targetHeight) {
+            width /= 2;
+            height /= 2;
+            result = scale(result, width, height);
+        }
+        return width == targetWidth && height == targetHeight ? result : scale(result, targetWidth, targetHeight);
+    }
+
+    @Override
+    public int getMaxInputSize() {
+        return maxInputSize;
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage scaledImage = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g2d = scaledImage.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2d.drawImage(image, 0, 0, width, height, null);
+        g2d.dispose();
+        return scaledImage;
+    }
+}
@@ -0,0 +1,175 @@
+package com.github.tornaia.jimglabel.tf;
+
+import org.tensorflow.Tensor;
+import org.tensorflow.ndarray.Shape;
+import org.tensorflow.ndarray.buffer.ByteDataBuffer;
+import org.tensorflow.ndarray.buffer.DataBuffers;
+import org.tensorflow.types.TUint8;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.DirectColorModel;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds the RGB uint8 input tensor straight from the rasters of the images: pixels are read from the backing
+ * data buffer (no {@link BufferedImage#getData()} copy, no redraw through Graphics2D), converted to RGB row by row
+ * in a single pass and written into the native memory of the tensor.
+ */
+public final class ImageTensorBuilder {
+
+    private static final int CHANNELS = 3;
+
+    private ImageTensorBuilder() {
+    }
+
+    /**
+     * @return tensor of shape [images.size(), height, width, 3], images are padded (bottom and right) with zeros
+     */
+    public static Tensor<TUint8> create(List<BufferedImage> images, int width, int height) {
+        Tensor<TUint8> tensor = Tensor.of(TUint8.DTYPE, Shape.of(images.size(), height, width, CHANNELS));
+        TUint8 tensorData = tensor.data();
+        int rowLength = width * CHANNELS;
+        byte[] row = new byte[rowLength];
+        ByteDataBuffer rowBuffer = DataBuffers.of(row, true, false);
+        for (int n = 0; n < images.size(); n++) {
+            BufferedImage image = images.get(n);
+            if (image.getWidth() > width || image.getHeight() > height) {
+                tensor.close();
+                throw new IllegalStateException("Must not happen, image: " + image.getWidth() + "x" + image.getHeight() + ", tensor: " + width + "x" + height);
+            }
+
+            RowReader rowReader = createRowReader(image);
+            for (int y = 0; y < height; y++) {
+                if (y < image.getHeight()) {
+                    rowReader.read(y, row);
+                    Arrays.fill(row, image.getWidth() * CHANNELS, rowLength, (byte) 0);
+                } else if (y == image.getHeight()) {
+                    Arrays.fill(row, (byte) 0);
+                }
+                tensorData.get(n, y).write(rowBuffer);
+            }
+        }
+        return tensor;
+    }
+
+    private static RowReader createRowReader(BufferedImage image) {
+        Raster raster = image.getRaster();
+        SampleModel sampleModel = raster.getSampleModel();
+        DataBuffer dataBuffer = raster.getDataBuffer();
+        int width = image.getWidth();
+        // sub images share the data buffer of their parent
+        int translateX = -raster.getSampleModelTranslateX();
+        int translateY = -raster.getSampleModelTranslateY();
+
+        if (dataBuffer instanceof DataBufferByte && dataBuffer.getNumBanks() == 1 && sampleModel instanceof ComponentSampleModel) {
+            ComponentSampleModel componentSampleModel = (ComponentSampleModel) sampleModel;
+            byte[] data = ((DataBufferByte) dataBuffer).getData();
+            int pixelStride = componentSampleModel.getPixelStride();
+            int scanlineStride = componentSampleModel.getScanlineStride();
+            int[] bandOffsets = componentSampleModel.getBandOffsets();
+            int offset = dataBuffer.getOffset() + translateY * scanlineStride + translateX * pixelStride;
+
+            if (image.getColorModel() instanceof IndexColorModel && bandOffsets.length == 1) {
+                IndexColorModel indexColorModel = (IndexColorModel) image.getColorModel();
+                byte[] palette = new byte[256 * CHANNELS];
+                for (int i = 0; i < indexColorModel.getMapSize(); i++) {
+                    palette[i * CHANNELS] = (byte) indexColorModel.getRed(i);
+                    palette[i * CHANNELS + 1] = (byte) indexColorModel.getGreen(i);
+                    palette[i * CHANNELS + 2] = (byte) indexColorModel.getBlue(i);
+                }
+                return (y, row) -> readIndexed(data, offset + y * scanlineStride, pixelStride, bandOffsets[0], palette, width, row);
+            }
+
+            boolean componentColorModel = image.getColorModel() instanceof ComponentColorModel && image.getColorModel().getColorSpace().isCS_sRGB();
+            if (componentColorModel && bandOffsets.length >= 3) {
+                // rgb, bgr, abgr: raster bands are always in r, g, b(, a) order whatever the byte order is
+                return (y, row) -> readInterleaved(data, offset + y * scanlineStride, pixelStride, bandOffsets[0], bandOffsets[1], bandOffsets[2], width, row);
+            }
+
+            boolean grayColorModel = image.getType() == BufferedImage.TYPE_BYTE_GRAY;
+            if (grayColorModel) {
+                return (y, row) -> readInterleaved(data, offset + y * scanlineStride, pixelStride, bandOffsets[0], bandOffsets[0], bandOffsets[0], width, row);
+            }
+        }
+
+        if (dataBuffer instanceof DataBufferUShort && dataBuffer.getNumBanks() == 1 && sampleModel instanceof ComponentSampleModel && image.getType() == BufferedImage.TYPE_USHORT_GRAY) {
+            ComponentSampleModel componentSampleModel = (ComponentSampleModel) sampleModel;
+            short[] data = ((DataBufferUShort) dataBuffer).getData();
+            int pixelStride = componentSampleModel.getPixelStride();
+            int scanlineStride = componentSampleModel.getScanlineStride();
+            int offset = dataBuffer.getOffset() + translateY * scanlineStride + translateX * pixelStride + componentSampleModel.getBandOffsets()[0];
+            return (y, row) -> readUShortGray(data, offset + y * scanlineStride, pixelStride, width, row);
+        }
+
+        if (dataBuffer instanceof DataBufferInt && dataBuffer.getNumBanks() == 1 && sampleModel instanceof SinglePixelPackedSampleModel && image.getColorModel() instanceof DirectColorModel) {
+            SinglePixelPackedSampleModel packedSampleModel = (SinglePixelPackedSampleModel) sampleModel;
+            int[] data = ((DataBufferInt) dataBuffer).getData();
+            int scanlineStride = packedSampleModel.getScanlineStride();
+            int[] bitOffsets = packedSampleModel.getBitOffsets();
+            boolean eightBitsPerBand = Arrays.stream(packedSampleModel.getSampleSize()).limit(3).allMatch(e -> e == 8);
+            if (eightBitsPerBand) {
+                int offset = dataBuffer.getOffset() + translateY * scanlineStride + translateX;
+                return (y, row) -> readPacked(data, offset + y * scanlineStride, bitOffsets[0], bitOffsets[1], bitOffsets[2], width, row);
+            }
+        }
+
+        // anything else (binary, custom color spaces): let the color model convert, still row by row
+        int[] argbRow = new int[width];
+        return (y, row) -> {
+            image.getRGB(0, y, width, 1, argbRow, 0, width);
+            readPacked(argbRow, 0, 16, 8, 0, width, row);
+        };
+    }
+
+    private static void readInterleaved(byte[] data, int rowOffset, int pixelStride, int red, int green, int blue, int width, byte[] row) {
+        for (int x = 0, s = rowOffset, d = 0; x < width; x++, s += pixelStride, d += CHANNELS) {
+            row[d] = data[s + red];
+            row[d + 1] = data[s + green];
+            row[d + 2] = data[s + blue];
+        }
+    }
+
+    private static void readIndexed(byte[] data, int rowOffset, int pixelStride, int bandOffset, byte[] palette, int width, byte[] row) {
+        for (int x = 0, s = rowOffset + bandOffset, d = 0; x < width; x++, s += pixelStride, d += CHANNELS) {
+            int p = (data[s] & 0xFF) * CHANNELS;
+            row[d] = palette[p];
+            row[d + 1] = palette[p + 1];
+            row[d + 2] = palette[p + 2];
+        }
+    }
+
+    private static void readUShortGray(short[] data, int rowOffset, int pixelStride, int width, byte[] row) {
+        for (int x = 0, s = rowOffset, d = 0; x < width; x++, s += pixelStride, d += CHANNELS) {
+            byte gray = (byte) (data[s] >>> 8);
+            row[d] = gray;
+            row[d + 1] = gray;
+            row[d + 2] = gray;
+        }
+    }
+
+    private static void readPacked(int[] data, int rowOffset, int redShift, int greenShift, int blueShift, int width, byte[] row) {
+        for (int x = 0, s = rowOffset, d = 0; x < width; x++, s++, d += CHANNELS) {
+            int pixel = data[s];
+            row[d] = (byte) (pixel >>> redShift);
+            row[d + 1] = (byte) (pixel >>> greenShift);
+            row[d + 2] = (byte) (pixel >>> blueShift);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowReader {
+
+        void read(int y, byte[] row);
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.tornaia.jimglabel.tf;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits an image into overlapping square tiles. The last tile of a row (column) is aligned to the right (bottom)
+ * edge, so every tile has the same size and no tile needs padding.
+ */
+public final class ImageTiler {
+
+    private ImageTiler() {
+    }
+
+    /**
+     * @param overlap fraction of the tile size shared by two neighbouring tiles, in [0, 1)
+     */
+    public static List<Rectangle> createTiles(int width, int height, int tileSize, float overlap) {
+        if (overlap < 0F || overlap >= 1F) {
+            throw new IllegalStateException("Must not happen, overlap: " + overlap);
+        }
+
+        int stride = Math.max(1, Math.round(tileSize * (1F - overlap)));
+        List<Integer> xs = offsets(width, tileSize, stride);
+        List<Integer> ys = offsets(height, tileSize, stride);
+        List<Rectangle> tiles = new ArrayList<>(xs.size() * ys.size());
+        for (int y : ys) {
+            for (int x : xs) {
+                tiles.add(new Rectangle(x, y, Math.min(tileSize, width), Math.min(tileSize, height)));
+            }
+        }
+        return tiles;
+    }
+
+    private static List<Integer> offsets(int length, int tileSize, int stride) {
+        List<Integer> offsets = new ArrayList<>();
+        if (length <= tileSize) {
+            offsets.add(0);
+            return offsets;
+        }
+
+        int offset = 0;
+        while (offset + tileSize < length) {
+            offsets.add(offset);
+            offset += stride;
+        }
+        offsets.add(length - tileSize);
+        return offsets;
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.tornaia.jimglabel.tf;
+
+import org.tensorflow.Graph;
+import org.tensorflow.GraphOperation;
+import org.tensorflow.Output;
+import org.tensorflow.SavedModelBundle;
+import org.tensorflow.Session;
+import org.tensorflow.Tensor;
+import org.tensorflow.proto.framework.MetaGraphDef;
+import org.tensorflow.proto.framework.SignatureDef;
+import org.tensorflow.proto.framework.TensorInfo;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Input and output operations of the serving signature, resolved once when the model is loaded.
+ * Feeding and fetching through the resolved {@link Output}s skips the signature map walk and the graph
+ * lookup by name on every run.
+ */
+public final class ModelBinding {
+
+    private static final String SIGNATURE_KEY = "serving_default";
+
+    private final Output<?> inputTensor;
+    private final Output<?> numDetections;
+    private final Output<?> detectionScores;
+    private final Output<?> detectionClasses;
+    private final Output<?> detectionBoxes;
+
+    private ModelBinding(Output<?> inputTensor, Output<?> numDetections, Output<?> detectionScores, Output<?> detectionClasses, Output<?> detectionBoxes) {
+        this.inputTensor = inputTensor;
+        this.numDetections = numDetections;
+        this.detectionScores = detectionScores;
+        this.detectionClasses = detectionClasses;
+        this.detectionBoxes = detectionBoxes;
+    }
+
+    public static ModelBinding of(SavedModelBundle model) {
+        return of(model.metaGraphDef(), model.graph());
+    }
+
+    public static ModelBinding of(MetaGraphDef metaGraphDef, Graph graph) {
+        SignatureDef sig = metaGraphDef.getSignatureDefOrThrow(SIGNATURE_KEY);
+        Map<String, TensorInfo> inputs = sig.getInputsMap();
+        Map<String, TensorInfo> outputs = sig.getOutputsMap();
+        return new ModelBinding(
+                resolve(graph, inputs, "input_tensor"),
+                resolve(graph, outputs, "num_detections"),
+                resolve(graph, outputs, "detection_scores"),
+                resolve(graph, outputs, "detection_classes"),
+                resolve(graph, outputs, "detection_boxes"));
+    }
+
+    /**
+     * @return num_detections, detection_scores, detection_classes and detection_boxes in this order
+     */
+    public List<Tensor<?>> run(Session session, Tensor<?> input) {
+        return session
+                .runner()
+                .feed(inputTensor, input)
+                .fetch(numDetections)
+                .fetch(detectionScores)
+                .fetch(detectionClasses)
+                .fetch(detectionBoxes)
+                .run();
+    }
+
+    private static Output<?> resolve(Graph graph, Map<String, TensorInfo> tensorInfos, String key) {
+        TensorInfo tensorInfo = tensorInfos.get(key);
+        if (tensorInfo == null) {
+            throw new IllegalStateException("Must not happen, key: " + key);
+        }
+
+        // tensor names are in the form of operation_name:output_index
+        String tensorName = tensorInfo.getName();
+        int separatorIndex = tensorName.lastIndexOf(':');
+        String operationName = separatorIndex == -1 ? tensorName : tensorName.substring(0, separatorIndex);
+        int outputIndex = separatorIndex == -1 ? 0 : Integer.parseInt(tensorName.substring(separatorIndex + 1));
+
+        GraphOperation operation = graph.operation(operationName);
+        if (operation == null) {
+            throw new IllegalStateException("Must not happen, operation not found: " + tensorName);
+        }
+        return operation.output(outputIndex);
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.tornaia.jimglabel.tf;
+
+import com.github.tornaia.jimglabel.gui.domain.ObjectClass;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inference backend: loads the label map and the model. The implementation is selected with the {@code tf.backend}
+ * property, {@code tensorflow} (default) or {@code fake}.
+ */
+public interface ModelLoader {
+
+    /**
+     * @return object classes by model class id
+     */
+    Map<Integer, ObjectClass> loadLabels() throws Exception;
+
+    ModelSession loadSession() throws Exception;
+
+    /**
+     * @return changes whenever the model or its label map changes
+     */
+    String getFingerprint() throws Exception;
+
+    /**
+     * Checks the detections of the bundled test image, throws if the model is not usable.
+     */
+    void verify(List<Detection> testImageDetections);
+
+    /**
+     * @return directories where a new export of the model shows up
+     */
+    List<Path> getWatchedDirectories();
+}
@@ -0,0 +1,18 @@
+package com.github.tornaia.jimglabel.tf;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Runs a loaded model, shared by the detection threads so implementations must be thread safe.
+ */
+public interface ModelSession {
+
+    /**
+     * @param images preprocessed images, padded (bottom and right) to {@code width} x {@code height}
+     * @return boxes normalized to the padded images
+     */
+    RawDetections run(List<BufferedImage> images, int width, int height);
+
+    void close();
+}
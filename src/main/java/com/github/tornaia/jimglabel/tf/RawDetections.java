@@ -0,0 +1,45 @@
+package com.github.tornaia.jimglabel.tf;
+
+/**
+ * Model outputs of a batch as flat arrays: {@code maxObjects} slots per image, four box coordinates (top, left,
+ * bottom, right) per slot.
+ */
+public final class RawDetections {
+
+    private final int batchSize;
+    private final int maxObjects;
+    private final float[] scores;
+    private final float[] classes;
+    private final float[] boxes;
+
+    public RawDetections(int batchSize, int maxObjects, float[] scores, float[] classes, float[] boxes) {
+        if (scores.length != batchSize * maxObjects || classes.length != scores.length || boxes.length != scores.length * 4) {
+            throw new IllegalStateException("Must not happen, batchSize: " + batchSize + ", maxObjects: " + maxObjects + ", scores: " + scores.length + ", classes: " + classes.length + ", boxes: " + boxes.length);
+        }
+        this.batchSize = batchSize;
+        this.maxObjects = maxObjects;
+        this.scores = scores;
+        this.classes = classes;
+        this.boxes = boxes;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getMaxObjects() {
+        return maxObjects;
+    }
+
+    public float[] getScores() {
+        return scores;
+    }
+
+    public float[] getClasses() {
+        return classes;
+    }
+
+    public float[] getBoxes() {
+        return boxes;
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.tornaia.jimglabel.tf;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the directories of the model and reloads it when they change. An export writes several files, the reload
+ * starts only after no change has been seen for the quiet period.
+ */
+@Component
+public class SavedModelWatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SavedModelWatcher.class);
+
+    private final TFService tfService;
+    private final ModelLoader modelLoader;
+    private final boolean enabled;
+    private final long quietPeriodMs;
+    private volatile WatchService watchService;
+
+    @Autowired
+    public SavedModelWatcher(TFService tfService, ModelLoader modelLoader, @Value("${tf.model.watch:true}") boolean enabled, @Value("${tf.model.reload-quiet-period-ms:5000}") long quietPeriodMs) {
+        this.tfService = tfService;
+        this.modelLoader = modelLoader;
+        this.enabled = enabled;
+        this.quietPeriodMs = quietPeriodMs;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void start() {
+        if (!enabled) {
+            LOG.info("Model watcher is disabled");
+            return;
+        }
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            LOG.warn("Failed to create model watcher", e);
+            return;
+        }
+
+        Thread watcherThread = new Thread(this::watch, "tf-model-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void stop() throws IOException {
+        WatchService watchService = this.watchService;
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watch() {
+        try {
+            register();
+            boolean changed = false;
+            while (true) {
+                WatchKey watchKey = changed ? watchService.poll(quietPeriodMs, TimeUnit.MILLISECONDS) : watchService.take();
+                if (watchKey == null) {
+                    LOG.info("Model changed on disk, reload");
+                    changed = false;
+                    tfService.reload();
+                    continue;
+                }
+
+                changed |= !watchKey.pollEvents().isEmpty();
+                watchKey.reset();
+                // the export may have deleted and recreated the directories
+                register();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            LOG.debug("Model watcher stopped");
+        }
+    }
+
+    private void register() {
+        Set<Path> directories = new LinkedHashSet<>(modelLoader.getWatchedDirectories());
+        for (Path directory : directories) {
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            try {
+                // registering a directory again returns its existing key
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            } catch (IOException e) {
+                LOG.warn("Failed to watch directory: {}", directory, e);
+            }
+        }
+    }
+}
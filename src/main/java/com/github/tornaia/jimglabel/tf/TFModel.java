@@ -0,0 +1,70 @@
+package com.github.tornaia.jimglabel.tf;
+
+import com.github.tornaia.jimglabel.gui.domain.ObjectClass;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A loaded model together with its label map. Reference counted: the service holds a reference while the model is
+ * the active one and every detection holds one while it runs, the session is closed when the last one is released.
+ */
+public final class TFModel {
+
+    private final ModelSession session;
+    private final Map<Integer, ObjectClass> cardsMap;
+    private final ObjectClass[] labels;
+    private final String fingerprint;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    public TFModel(ModelSession session, Map<Integer, ObjectClass> cardsMap, String fingerprint) {
+        this.session = session;
+        this.cardsMap = Map.copyOf(cardsMap);
+        this.labels = new ObjectClass[cardsMap.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1];
+        cardsMap.forEach((clazz, objectClass) -> labels[clazz] = objectClass);
+        this.fingerprint = fingerprint;
+    }
+
+    public ModelSession getSession() {
+        return session;
+    }
+
+    public Map<Integer, ObjectClass> getCardsMap() {
+        return cardsMap;
+    }
+
+    /**
+     * @return object classes indexed by model class id, do not modify
+     */
+    public ObjectClass[] getLabels() {
+        return labels;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return false if the model has already been closed
+     */
+    public boolean retain() {
+        while (true) {
+            int current = references.get();
+            if (current == 0) {
+                return false;
+            }
+            if (references.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        int remaining = references.decrementAndGet();
+        if (remaining == 0) {
+            session.close();
+        } else if (remaining < 0) {
+            throw new IllegalStateException("Must not happen, model released too many times");
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.github.tornaia.jimglabel.tf;
+
+import com.github.tornaia.jimglabel.common.json.SerializerUtils;
+import com.github.tornaia.jimglabel.gui.domain.ObjectClass;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.tensorflow.SavedModelBundle;
+import org.tensorflow.proto.framework.ConfigProto;
+import org.tensorflow.proto.framework.GPUOptions;
+import org.tensorflow.proto.framework.MetaGraphDef;
+import org.tensorflow.proto.framework.SignatureDef;
+import org.tensorflow.proto.framework.TensorInfo;
+
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Loads the exported TensorFlow SavedModel together with its label map and the card classes.
+ */
+@Component
+@ConditionalOnProperty(name = "tf.backend", havingValue = "tensorflow", matchIfMissing = true)
+public class TFModelLoader implements ModelLoader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TFModelLoader.class);
+
+    private final SerializerUtils serializerUtils;
+    private final String savedModelDirectory;
+    private final String labelMapFile;
+    private final String classesFile;
+    private final int intraOpThreads;
+    private final int interOpThreads;
+
+    @Autowired
+    public TFModelLoader(SerializerUtils serializerUtils, @Value("${tf.model.saved-model-directory:C:/workspace/tensorflow2/workspace/training_demo/exported-models/my_model/saved_model/}") String savedModelDirectory, @Value("${tf.model.label-map:C:/workspace/tensorflow2/workspace/training_demo/annotations/label_map.pbtxt}") String labelMapFile, @Value("${tf.model.classes:C:/temp/!source_images/classes.json}") String classesFile, @Value("${tf.intra-op-threads:0}") int intraOpThreads, @Value("${tf.inter-op-threads:0}") int interOpThreads) {
+        this.serializerUtils = serializerUtils;
+        this.savedModelDirectory = savedModelDirectory;
+        this.labelMapFile = labelMapFile;
+        this.classesFile = classesFile;
+        this.intraOpThreads = intraOpThreads;
+        this.interOpThreads = interOpThreads;
+    }
+
+    @Override
+    public ModelSession loadSession() {
+        SavedModelBundle savedModel = SavedModelBundle
+                .loader(savedModelDirectory)
+                .withConfigProto(ConfigProto.newBuilder()
+                        .setGpuOptions(GPUOptions.newBuilder().setAllowGrowth(true))
+                        // 0 lets TensorFlow pick the number of threads
+                        .setIntraOpParallelismThreads(intraOpThreads)
+                        .setInterOpParallelismThreads(interOpThreads)
+                        .build())
+                .withTags("serve")
+                .load();
+        try {
+            printSignature(savedModel);
+            return new TFModelSession(savedModel);
+        } catch (RuntimeException e) {
+            savedModel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The variables index holds a checksum of every variable, hashing it is enough to notice new weights without
+     * reading the (large) data shards.
+     */
+    @Override
+    public String getFingerprint() throws Exception {
+        Path savedModelPath = Path.of(savedModelDirectory);
+        List<Path> files = List.of(
+                savedModelPath.resolve("saved_model.pb"),
+                savedModelPath.resolve("variables").resolve("variables.index"),
+                Path.of(labelMapFile),
+                Path.of(classesFile));
+        MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+        for (Path file : files) {
+            messageDigest.update(Files.readAllBytes(file));
+        }
+        return String.format("%064x", new BigInteger(1, messageDigest.digest()));
+    }
+
+    @Override
+    public void verify(List<Detection> testImageDetections) {
+        Set<String> actualTopDetections = testImageDetections
+                .stream()
+                .filter(e -> e.getScore() > 0.99F)
+                .map(Detection::getCardId)
+                .collect(Collectors.toSet());
+
+        Set<String> expectedTopDetections = Set.of("0453", "0511", "0521");
+        boolean success = actualTopDetections.equals(expectedTopDetections);
+        if (!success) {
+            throw new IllegalStateException("Failed to detect objects, expected: " + expectedTopDetections + ", actual: " + actualTopDetections);
+        }
+    }
+
+    @Override
+    public List<Path> getWatchedDirectories() {
+        Path savedModelPath = Path.of(savedModelDirectory);
+        // the export may delete and recreate the saved model directory, its parent is watched too
+        return List.of(savedModelPath.getParent(), savedModelPath, savedModelPath.resolve("variables"), Path.of(labelMapFile).getParent());
+    }
+
+    private static void printSignature(SavedModelBundle model) {
+        MetaGraphDef m = model.metaGraphDef();
+        SignatureDef sig = m.getSignatureDefOrThrow("serving_default");
+        StringBuilder sb = new StringBuilder("Model signature");
+        sb.append(System.lineSeparator());
+        sb.append(String.format("\tInputs (%d)", sig.getInputsCount()));
+        sb.append(System.lineSeparator());
+        sb.append(String.format("\t%-10s %-30s %-30s %s", "#", "Key", "Name", "Type"));
+        sb.append(System.lineSeparator());
+
+        List<Map.Entry<String, TensorInfo>> inputTensorInfos = sig
+                .getInputsMap()
+                .entrySet()
+                .stream()
+                .sorted(Comparator.comparing(e -> e.getValue().getName())).collect(Collectors.toList());
+        for (int i = 0; i < inputTensorInfos.size(); i++) {
+            Map.Entry<String, TensorInfo> tensorInfoEntry = inputTensorInfos.get(i);
+            String tensorInfoKey = tensorInfoEntry.getKey();
+            TensorInfo tensorInfo = tensorInfoEntry.getValue();
+            sb.append(String.format("\t%-10s %-30s %-30s %s", i, tensorInfoKey, tensorInfo.getName(), tensorInfo.getDtype()));
+            sb.append(System.lineSeparator());
+        }
+        sb.append(System.lineSeparator());
+
+        sb.append(String.format("\tOutputs (%d)", sig.getOutputsCount()));
+        sb.append(System.lineSeparator());
+        sb.append(String.format("\t%-10s %-30s %-30s %s", "#", "Key", "Name", "Type"));
+        sb.append(System.lineSeparator());
+
+        List<Map.Entry<String, TensorInfo>> outputTensorInfos = sig
+                .getOutputsMap()
+                .entrySet()
+                .stream()
+                .sorted(Comparator.comparing(e -> e.getValue().getName())).collect(Collectors.toList());
+        for (int i = 0; i < outputTensorInfos.size(); i++) {
+            Map.Entry<String, TensorInfo> tensorInfoEntry = outputTensorInfos.get(i);
+            String tensorInfoKey = tensorInfoEntry.getKey();
+            TensorInfo tensorInfo = tensorInfoEntry.getValue();
+            sb.append(String.format("\t%-10s %-30s %-30s %s", i, tensorInfoKey, tensorInfo.getName(), tensorInfo.getDtype()));
+            sb.append(System.lineSeparator());
+        }
+        LOG.info(sb.toString());
+    }
+
+    @Override
+    public Map<Integer, ObjectClass> loadLabels() throws Exception {
+        Map<Integer, String> tensorMap = loadTensorMap();
+        Map<Integer, ObjectClass> integerObjectClassMap = loadClassesMap();
+
+        Map<Integer, ObjectClass> labelMap = tensorMap.entrySet()
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> integerObjectClassMap.get(Integer.parseInt(e.getValue()))));
+
+        boolean missingValue = labelMap
+                .values()
+                .stream()
+                .anyMatch(Objects::isNull);
+        if (missingValue) {
+            throw new IllegalStateException("Failed to load label map, tensorMap: " + tensorMap + ", integerObjectClassMap: " + integerObjectClassMap);
+        }
+
+        return labelMap;
+    }
+
+    private Map<Integer, String> loadTensorMap() throws Exception {
+        String tensorMapContent = Files.readString(Paths.get(labelMapFile));
+
+        Map<Integer, String> tensorMap = new HashMap<>();
+        for (String entry : tensorMapContent.split("item \\{")) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+
+            Integer id = null;
+            String name = null;
+            for (String line : entry.split("\n")) {
+                String trimmedLine = line.trim();
+                if (trimmedLine.startsWith("id: ")) {
+                    id = Integer.parseInt(trimmedLine.split(": ")[1]);
+                } else if (trimmedLine.startsWith("name: '")) {
+                    name = trimmedLine.split(": '")[1];
+                    if (!name.endsWith("'")) {
+                        throw new IllegalStateException("Must not happen, line: " + line);
+                    }
+                    name = name.substring(0, name.length() - 1);
+                }
+            }
+            if (id == null || name == null) {
+                throw new IllegalStateException("Failed to parse file");
+            }
+
+            tensorMap.put(id, name);
+        }
+        return tensorMap;
+    }
+
+    private Map<Integer, ObjectClass> loadClassesMap() throws Exception {
+        String classesMapContent = Files.readString(Path.of(classesFile));
+        Map<?, ?> classesMap = serializerUtils.toObject(classesMapContent, Map.class);
+        List<Map<String, String>> classes = (List<Map<String, String>>) classesMap.get("classes");
+        return classes
+                .stream()
+                .collect(Collectors.toMap(e -> Integer.parseInt(e.get("id")), e -> new ObjectClass(Integer.parseInt(e.get("id")), e.get("cardId"), e.get("name"))));
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.tornaia.jimglabel.tf;
+
+import org.tensorflow.SavedModelBundle;
+import org.tensorflow.Tensor;
+import org.tensorflow.ndarray.buffer.DataBuffers;
+import org.tensorflow.types.TFloat32;
+import org.tensorflow.types.TUint8;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+public class TFModelSession implements ModelSession {
+
+    private final SavedModelBundle savedModel;
+    private final ModelBinding modelBinding;
+
+    public TFModelSession(SavedModelBundle savedModel) {
+        this.savedModel = savedModel;
+        this.modelBinding = ModelBinding.of(savedModel);
+    }
+
+    @Override
+    public RawDetections run(List<BufferedImage> images, int width, int height) {
+        Tensor<TUint8> input = ImageTensorBuilder.create(images, width, height);
+
+        List<Tensor<?>> outputs;
+        try (input) {
+            outputs = modelBinding.run(savedModel.session(), input);
+        }
+
+        try (Tensor<TFloat32> detectionsT = outputs.get(0).expect(TFloat32.DTYPE);
+             Tensor<TFloat32> scoresT = outputs.get(1).expect(TFloat32.DTYPE);
+             Tensor<TFloat32> classesT = outputs.get(2).expect(TFloat32.DTYPE);
+             Tensor<TFloat32> boxesT = outputs.get(3).expect(TFloat32.DTYPE)) {
+            // All these tensors have:
+            // - batchSize as the first dimension
+            // - maxObjects as the second dimension
+            // While boxesT will have 4 as the third dimension (2 sets of (x, y) coordinates).
+            // This can be verified by looking at scoresT.shape() etc.
+            int batchSize = (int) scoresT.shape().asArray()[0];
+            int maxObjects = (int) scoresT.shape().asArray()[1];
+
+            float[] scores = new float[batchSize * maxObjects];
+            float[] classes = new float[batchSize * maxObjects];
+            float[] boxes = new float[batchSize * maxObjects * 4];
+            scoresT.data().read(DataBuffers.of(scores, false, false));
+            classesT.data().read(DataBuffers.of(classes, false, false));
+            boxesT.data().read(DataBuffers.of(boxes, false, false));
+            return new RawDetections(batchSize, maxObjects, scores, classes, boxes);
+        }
+    }
+
+    @Override
+    public void close() {
+        savedModel.close();
+    }
+}
@@ -2,8 +2,35 @@ package com.github.tornaia.jimglabel.tf;
 
 import java.awt.image.BufferedImage;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public interface TFService {
 
-    List<Detection> detect(BufferedImage inputImage);
+    TFServiceState getState();
+
+    /**
+     * @return identifies the graph, the weights, the label map and the post-processing of the active model, null until a model is loaded
+     */
+    String getModelFingerprint();
+
+    /**
+     * @return the longest side the images are downscaled to before the detection, 0 if the detection needs the full resolution image
+     */
+    int getInputSize();
+
+    /**
+     * @param inputImage called on the detection thread, decoding the image does not block the caller
+     */
+    CompletableFuture<List<Detection>> detect(Supplier<BufferedImage> inputImage);
+
+    /**
+     * Background work, runs after the detections of single images waiting and is never cancelled to make room for them.
+     */
+    CompletableFuture<List<List<Detection>>> detectBatch(List<BufferedImage> inputImages);
+
+    /**
+     * Loads the model again from disk and swaps it in when it passes the self-test, the current model is kept otherwise.
+     */
+    void reload();
 }
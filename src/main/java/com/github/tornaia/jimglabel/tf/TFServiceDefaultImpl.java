@@ -1,40 +1,30 @@
 package com.github.tornaia.jimglabel.tf;
 
-import com.github.tornaia.jimglabel.common.json.SerializerUtils;
+import com.github.tornaia.jimglabel.common.clock.ClockService;
+import com.github.tornaia.jimglabel.common.event.EventPublisher;
 import com.github.tornaia.jimglabel.gui.domain.ObjectClass;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
-import org.tensorflow.SavedModelBundle;
-import org.tensorflow.Tensor;
-import org.tensorflow.ndarray.NdArrays;
-import org.tensorflow.ndarray.Shape;
-import org.tensorflow.ndarray.StdArrays;
-import org.tensorflow.ndarray.buffer.DataBuffers;
-import org.tensorflow.proto.framework.ConfigProto;
-import org.tensorflow.proto.framework.GPUOptions;
-import org.tensorflow.proto.framework.MetaGraphDef;
-import org.tensorflow.proto.framework.SignatureDef;
-import org.tensorflow.proto.framework.TensorInfo;
-import org.tensorflow.types.TFloat32;
-import org.tensorflow.types.TUint8;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferByte;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Component
@@ -42,285 +32,269 @@ public class TFServiceDefaultImpl implements TFService {
 
     private static final Logger LOG = LoggerFactory.getLogger(TFServiceDefaultImpl.class);
 
-    private static final String TENSOR_MAP = "C:/workspace/tensorflow2/workspace/training_demo/annotations/label_map.pbtxt";
-    private static final String CLASSES_MAP = "C:/temp/!source_images/classes.json";
-    private static final String SAVED_MODEL_DIRECTORY = "C:/workspace/tensorflow2/workspace/training_demo/exported-models/my_model/saved_model/";
-
-    private final SerializerUtils serializerUtils;
-    private Map<Integer, ObjectClass> cardsMap;
-    private SavedModelBundle savedModel;
+    private final ModelLoader modelLoader;
+    private final ImagePreprocessor imagePreprocessor;
+    private final DetectionPostProcessor detectionPostProcessor;
+    private final DetectionExecutor detectionExecutor;
+    private final EventPublisher eventPublisher;
+    private final ClockService clockService;
+    private final boolean tiling;
+    private final int tileSize;
+    private final float tileOverlap;
+    private final int tileBatchSize;
+    private final CompletableFuture<Void> initialized = new CompletableFuture<>();
+    private final AtomicReference<TFModel> activeModel = new AtomicReference<>();
+    private volatile TFServiceState state = TFServiceState.LOADING;
 
     @Autowired
-    public TFServiceDefaultImpl(SerializerUtils serializerUtils) {
-        this.serializerUtils = serializerUtils;
-
-        try {
-            long start = System.currentTimeMillis();
-            this.cardsMap = loadCardsMap();
-            printCards();
+    public TFServiceDefaultImpl(ModelLoader modelLoader, ImagePreprocessor imagePreprocessor, DetectionPostProcessor detectionPostProcessor, DetectionExecutor detectionExecutor, EventPublisher eventPublisher, ClockService clockService, @Value("${tf.tiling.enabled:false}") boolean tiling, @Value("${tf.tiling.tile-size:1024}") int tileSize, @Value("${tf.tiling.overlap:0.25}") float tileOverlap, @Value("${tf.tiling.batch-size:4}") int tileBatchSize) {
+        this.modelLoader = modelLoader;
+        this.imagePreprocessor = imagePreprocessor;
+        this.detectionPostProcessor = detectionPostProcessor;
+        this.detectionExecutor = detectionExecutor;
+        this.eventPublisher = eventPublisher;
+        this.clockService = clockService;
+        this.tiling = tiling;
+        this.tileSize = tileSize;
+        this.tileOverlap = tileOverlap;
+        this.tileBatchSize = tileBatchSize;
+        if (tiling) {
+            LOG.info("Tiled detection, tile size: {}, overlap: {}, batch size: {}", tileSize, tileOverlap, tileBatchSize);
+        }
+    }
 
-            this.savedModel = SavedModelBundle
-                    .loader(SAVED_MODEL_DIRECTORY)
-                    .withConfigProto(ConfigProto.newBuilder().setGpuOptions(GPUOptions.newBuilder().setAllowGrowth(true)).build())
-                    .withTags("serve")
-                    .load();
-            printSignature(savedModel);
+    @EventListener(ContextRefreshedEvent.class)
+    public void applicationStarted() {
+        // loading the model and the warm-up detection take seconds, do not block the startup of the gui
+        Thread initializerThread = new Thread(this::initialize, "tf-initializer");
+        initializerThread.setDaemon(true);
+        initializerThread.start();
+    }
 
-            BufferedImage testImage = ImageIO.read(new ClassPathResource("tf_test_image.jpg").getInputStream());
-            List<Detection> detections = detect(testImage);
-            Set<String> actualTopDetections = detections
-                    .stream()
-                    .filter(e -> e.getScore() > 0.99F)
-                    .map(Detection::getCardId)
-                    .collect(Collectors.toSet());
-
-            Set<String> expectedTopDetections = Set.of("0453", "0511", "0521");
-            boolean success = actualTopDetections.equals(expectedTopDetections);
-            if (!success) {
-                throw new IllegalStateException("Failed to detect objects, expected: " + expectedTopDetections + ", actual: " + actualTopDetections);
-            }
-            LOG.info("TensorFlow initialized in {} ms", (System.currentTimeMillis() - start));
-        } catch (Exception e) {
-            LOG.error("Failed to initialize TFService", e);
-        }
+    @Override
+    public TFServiceState getState() {
+        return state;
     }
 
     @Override
-    public List<Detection> detect(BufferedImage inputImage) {
-        Tensor<TUint8> input = createTensor(inputImage);
-
-        List<Tensor<?>> outputs = savedModel
-                .session()
-                .runner()
-                .feed(getInputNodeName(savedModel, "input_tensor"), input)
-                .fetch(getOutputNodeName(savedModel, "num_detections"))
-                .fetch(getOutputNodeName(savedModel, "detection_scores"))
-                .fetch(getOutputNodeName(savedModel, "detection_classes"))
-                .fetch(getOutputNodeName(savedModel, "detection_boxes"))
-                .run();
-
-        try (Tensor<TFloat32> detectionsT = outputs.get(0).expect(TFloat32.DTYPE);
-             Tensor<TFloat32> scoresT = outputs.get(1).expect(TFloat32.DTYPE);
-             Tensor<TFloat32> classesT = outputs.get(2).expect(TFloat32.DTYPE);
-             Tensor<TFloat32> boxesT = outputs.get(3).expect(TFloat32.DTYPE)) {
-            // All these tensors have:
-            // - 1 as the first dimension
-            // - maxObjects as the second dimension
-            // While boxesT will have 4 as the third dimension (2 sets of (x, y) coordinates).
-            // This can be verified by looking at scoresT.shape() etc.
-            int maxObjects = (int) scoresT.shape().asArray()[1];
-            // float detections = detectionsT.data().copyTo(NdArrays.ofFloats(Shape.of(1))).getFloat(0);
-
-            // float[] scores = scoresT.copyTo(new float[1][maxObjects])[0];
-            float[] scores = StdArrays.array1dCopyOf(scoresT.data().copyTo(NdArrays.ofFloats(Shape.of(1, maxObjects))).get(0));
-
-            // float[] classes = classesT.copyTo(new float[1][maxObjects])[0];
-            float[] classes = StdArrays.array1dCopyOf(classesT.data().copyTo(NdArrays.ofFloats(Shape.of(1, maxObjects))).get(0));
-
-            // float[][] boxes = boxesT.copyTo(new float[1][maxObjects][4])[0];
-            float[][] boxes = StdArrays.array2dCopyOf(boxesT.data().copyTo(NdArrays.ofFloats(Shape.of(1, maxObjects, 4))).get(0));
-
-            // Print all objects whose score is at least 0.25
-            List<Detection> result = new ArrayList<>();
-            for (int i = 0; i < scores.length; ++i) {
-                ObjectClass objectClass = cardsMap.get((int) classes[i]);
-                int id = objectClass.getId();
-                String cardId = objectClass.getCardId();
-                String name = objectClass.getName();
-                if (i == 0 && scores[i] > 0.01F) {
-                    // LOG.info("Detection-top: {}", new Detection(boxes[i][0], boxes[i][1], boxes[i][2], boxes[i][3], id, cardId, name, scores[i]));
-                }
-                result.add(new Detection(boxes[i][0], boxes[i][1], boxes[i][2], boxes[i][3], id, cardId, name, scores[i]));
-                // drawCard(inputImage, boxes[i], (int) classes[i], scores[i]);
-            }
+    public String getModelFingerprint() {
+        TFModel model = activeModel.get();
+        return model != null ? model.getFingerprint() : null;
+    }
 
-            // ImageIO.write(inputImage, "png", new File("C:/temp/out.png"));
-            return result;
-        }
+    @Override
+    public int getInputSize() {
+        // tiles are cut from the full resolution image
+        return tiling ? 0 : imagePreprocessor.getMaxInputSize();
     }
 
-    private static Tensor<TUint8> createTensor(BufferedImage img) {
-        if (img.getType() == BufferedImage.TYPE_BYTE_INDEXED ||
-                img.getType() == BufferedImage.TYPE_BYTE_BINARY ||
-                img.getType() == BufferedImage.TYPE_BYTE_GRAY ||
-                img.getType() == BufferedImage.TYPE_USHORT_GRAY ||
-                img.getType() == BufferedImage.TYPE_4BYTE_ABGR) {
-            BufferedImage bgr = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
-            bgr.getGraphics().drawImage(img, 0, 0, null);
-            img = bgr;
-        }
-        if (img.getType() != BufferedImage.TYPE_3BYTE_BGR) {
-            throw new IllegalStateException(String.format("Expected 3-byte BGR encoding in BufferedImage, found %d. This code could be made more robust", img.getType()));
-        }
+    @Override
+    public CompletableFuture<List<Detection>> detect(Supplier<BufferedImage> inputImage) {
+        return detectionExecutor.submit(() -> detectWithActiveModel(List.of(inputImage.get())).get(0));
+    }
 
-        byte[] data = ((DataBufferByte) img.getData().getDataBuffer()).getData();
-        // ImageIO.read seems to produce BGR-encoded images, but the model expects RGB.
-        bgr2rgb(data);
-        final long BATCH_SIZE = 1;
-        final long CHANNELS = 3;
-        Shape shape = Shape.of(BATCH_SIZE, img.getHeight(), img.getWidth(), CHANNELS);
-        return Tensor.of(TUint8.DTYPE, shape, DataBuffers.of(data, true, false));
+    @Override
+    public CompletableFuture<List<List<Detection>>> detectBatch(List<BufferedImage> inputImages) {
+        return detectionExecutor.submitBackground(() -> detectWithActiveModel(inputImages));
     }
 
-    private static void bgr2rgb(byte[] data) {
-        for (int i = 0; i < data.length; i += 3) {
-            byte tmp = data[i];
-            data[i] = data[i + 2];
-            data[i + 2] = tmp;
+    @Override
+    public synchronized void reload() {
+        try {
+            long start = System.currentTimeMillis();
+            TFModel newModel = loadModel();
+            // detections in flight keep their reference, the old session is closed when the last of them completes
+            TFModel oldModel = activeModel.getAndSet(newModel);
+            if (oldModel != null) {
+                oldModel.release();
+            }
+            LOG.info("Model reloaded in {} ms", (System.currentTimeMillis() - start));
+            if (state != TFServiceState.READY) {
+                updateState(TFServiceState.READY);
+            }
+        } catch (Exception e) {
+            LOG.error("Failed to reload model, the current one is kept", e);
         }
     }
 
-    private void printCards() throws Exception {
-        Map<Integer, ObjectClass> objectClasses = loadCardsMap();
-        StringBuilder sb = new StringBuilder("Cards");
-        sb.append(System.lineSeparator());
-        sb.append(String.format("\tCards (%d)", objectClasses.size()));
-        sb.append(System.lineSeparator());
-        sb.append(String.format("\t%-5s %-5s %-8s %s", "#", "ID", "CardID", "Name"));
-        sb.append(System.lineSeparator());
-        for (Map.Entry<Integer, ObjectClass> objectClassEntry : objectClasses.entrySet()) {
-            Integer tfId = objectClassEntry.getKey();
-            ObjectClass objectClass = objectClassEntry.getValue();
-            int id = objectClass.getId();
-            String cardId = objectClass.getCardId();
-            String name = objectClass.getName();
-            sb.append(String.format("\t%-5s %-5s %-8s %s", tfId, id, cardId, name));
-            sb.append(System.lineSeparator());
+    private synchronized void initialize() {
+        try {
+            long start = System.currentTimeMillis();
+            activeModel.set(loadModel());
+            LOG.info("Model loaded in {} ms", (System.currentTimeMillis() - start));
+            updateState(TFServiceState.READY);
+            initialized.complete(null);
+        } catch (Exception e) {
+            LOG.error("Failed to initialize TFService", e);
+            updateState(TFServiceState.FAILED);
+            initialized.completeExceptionally(e);
         }
-        LOG.info(sb.toString());
     }
 
-    private static void printSignature(SavedModelBundle model) {
-        MetaGraphDef m = model.metaGraphDef();
-        SignatureDef sig = m.getSignatureDefOrThrow("serving_default");
-        StringBuilder sb = new StringBuilder("Model signature");
-        sb.append(System.lineSeparator());
-        sb.append(String.format("\tInputs (%d)", sig.getInputsCount()));
-        sb.append(System.lineSeparator());
-        sb.append(String.format("\t%-10s %-30s %-30s %s", "#", "Key", "Name", "Type"));
-        sb.append(System.lineSeparator());
+    private TFModel loadModel() throws Exception {
+        Map<Integer, ObjectClass> cardsMap = modelLoader.loadLabels();
+        printCards(cardsMap);
+        String fingerprint = fingerprint();
 
-        List<Map.Entry<String, TensorInfo>> inputTensorInfos = sig
-                .getInputsMap()
-                .entrySet()
-                .stream()
-                .sorted(Comparator.comparing(e -> e.getValue().getName())).collect(Collectors.toList());
-        for (int i = 0; i < inputTensorInfos.size(); i++) {
-            Map.Entry<String, TensorInfo> tensorInfoEntry = inputTensorInfos.get(i);
-            String tensorInfoKey = tensorInfoEntry.getKey();
-            TensorInfo tensorInfo = tensorInfoEntry.getValue();
-            sb.append(String.format("\t%-10s %-30s %-30s %s", i, tensorInfoKey, tensorInfo.getName(), tensorInfo.getDtype()));
-            sb.append(System.lineSeparator());
+        TFModel model = new TFModel(modelLoader.loadSession(), cardsMap, fingerprint);
+        try {
+            BufferedImage testImage = ImageIO.read(new ClassPathResource("tf_test_image.jpg").getInputStream());
+            modelLoader.verify(detectBatchInternal(model, List.of(testImage)).get(0));
+        } catch (Exception e) {
+            model.release();
+            throw e;
         }
-        sb.append(System.lineSeparator());
+        return model;
+    }
 
-        sb.append(String.format("\tOutputs (%d)", sig.getOutputsCount()));
-        sb.append(System.lineSeparator());
-        sb.append(String.format("\t%-10s %-30s %-30s %s", "#", "Key", "Name", "Type"));
-        sb.append(System.lineSeparator());
+    /**
+     * The post-processing and the tiling settings change the detections as well as the model does.
+     */
+    private String fingerprint() throws Exception {
+        MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+        messageDigest.update(modelLoader.getFingerprint().getBytes(StandardCharsets.UTF_8));
+        messageDigest.update(detectionPostProcessor.getSettings().getBytes(StandardCharsets.UTF_8));
+        String tilingSettings = tiling ? String.format("tileSize=%s, tileOverlap=%s", tileSize, tileOverlap) : "tiling=false";
+        messageDigest.update(tilingSettings.getBytes(StandardCharsets.UTF_8));
+        return String.format("%064x", new BigInteger(1, messageDigest.digest()));
+    }
 
-        List<Map.Entry<String, TensorInfo>> outputTensorInfos = sig
-                .getOutputsMap()
-                .entrySet()
-                .stream()
-                .sorted(Comparator.comparing(e -> e.getValue().getName())).collect(Collectors.toList());
-        for (int i = 0; i < outputTensorInfos.size(); i++) {
-            Map.Entry<String, TensorInfo> tensorInfoEntry = outputTensorInfos.get(i);
-            String tensorInfoKey = tensorInfoEntry.getKey();
-            TensorInfo tensorInfo = tensorInfoEntry.getValue();
-            sb.append(String.format("\t%-10s %-30s %-30s %s", i, tensorInfoKey, tensorInfo.getName(), tensorInfo.getDtype()));
-            sb.append(System.lineSeparator());
-        }
-        LOG.info(sb.toString());
+    private void updateState(TFServiceState state) {
+        this.state = state;
+        eventPublisher.publish(new TFServiceStateChangedEvent(state, clockService.now()));
     }
 
-    private static String getInputNodeName(SavedModelBundle model, String name) {
-        MetaGraphDef m = model.metaGraphDef();
-        SignatureDef sig = m.getSignatureDefOrThrow("serving_default");
-        for (Map.Entry<String, TensorInfo> entry : sig.getInputsMap().entrySet()) {
-            TensorInfo t = entry.getValue();
-            if (entry.getKey().equals(name)) {
-                return t.getName();
+    private List<List<Detection>> detectWithActiveModel(List<BufferedImage> inputImages) {
+        awaitInitialized();
+        TFModel model = acquireModel();
+        try {
+            if (tiling) {
+                return inputImages
+                        .stream()
+                        .map(e -> detectTiled(model, e))
+                        .collect(Collectors.toList());
             }
+            return detectBatchInternal(model, inputImages);
+        } finally {
+            model.release();
         }
-
-        throw new IllegalStateException("Must not happen, name: " + name);
     }
 
-    private static String getOutputNodeName(SavedModelBundle model, String name) {
-        MetaGraphDef m = model.metaGraphDef();
-        SignatureDef sig = m.getSignatureDefOrThrow("serving_default");
-        for (Map.Entry<String, TensorInfo> entry : sig.getOutputsMap().entrySet()) {
-            TensorInfo t = entry.getValue();
-            if (entry.getKey().equals(name)) {
-                return t.getName();
-            }
+    /**
+     * Small objects of a high resolution photo lose most of their pixels when the whole photo is scaled down to the
+     * model input. Each tile is analyzed at (about) full resolution instead, the downscaled whole image is analyzed
+     * too so objects bigger than a tile are found as well. Chunks of tiles run one after another on the detection
+     * thread, tf.detection.threads bounds the inferences running at the same time.
+     */
+    private List<Detection> detectTiled(TFModel model, BufferedImage image) {
+        List<Rectangle> tiles = ImageTiler.createTiles(image.getWidth(), image.getHeight(), tileSize, tileOverlap);
+        if (tiles.size() == 1) {
+            return detectBatchInternal(model, List.of(image)).get(0);
         }
 
-        throw new IllegalStateException("Must not happen, name: " + name);
+        List<Detection> detections = new ArrayList<>(detectBatchInternal(model, List.of(image)).get(0));
+        for (int i = 0; i < tiles.size(); i += tileBatchSize) {
+            List<Rectangle> chunk = tiles.subList(i, Math.min(tiles.size(), i + tileBatchSize));
+            detections.addAll(detectTiles(model, image, chunk));
+        }
+        return detectionPostProcessor.merge(detections);
     }
 
-    private Map<Integer, ObjectClass> loadCardsMap() throws Exception {
-        Map<Integer, String> tensorMap = loadTensorMap();
-        Map<Integer, ObjectClass> integerObjectClassMap = loadClassesMap();
-
-        Map<Integer, ObjectClass> labelMap = tensorMap.entrySet()
-                .stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, e -> integerObjectClassMap.get(Integer.parseInt(e.getValue()))));
-
-        boolean missingValue = labelMap
-                .values()
+    private List<Detection> detectTiles(TFModel model, BufferedImage image, List<Rectangle> tiles) {
+        // sub images share the raster of the image, nothing is copied
+        List<BufferedImage> tileImages = tiles
                 .stream()
-                .anyMatch(Objects::isNull);
-        if (missingValue) {
-            throw new IllegalStateException("Failed to load label map, tensorMap: " + tensorMap + ", integerObjectClassMap: " + integerObjectClassMap);
+                .map(e -> image.getSubimage(e.x, e.y, e.width, e.height))
+                .collect(Collectors.toList());
+        List<List<Detection>> tileDetections = detectBatchInternal(model, tileImages);
+
+        float width = image.getWidth();
+        float height = image.getHeight();
+        List<Detection> result = new ArrayList<>();
+        for (int i = 0; i < tiles.size(); ++i) {
+            Rectangle tile = tiles.get(i);
+            for (Detection detection : tileDetections.get(i)) {
+                float top = (tile.y + detection.getTop() * tile.height) / height;
+                float left = (tile.x + detection.getLeft() * tile.width) / width;
+                float bottom = (tile.y + detection.getBottom() * tile.height) / height;
+                float right = (tile.x + detection.getRight() * tile.width) / width;
+                result.add(new Detection(top, left, bottom, right, detection.getId(), detection.getCardId(), detection.getName(), detection.getScore()));
+            }
         }
-
-        return labelMap;
+        return result;
     }
 
-    private Map<Integer, String> loadTensorMap() throws Exception {
-        String tensorMapContent = Files.readString(Paths.get(TENSOR_MAP));
-
-        Map<Integer, String> tensorMap = new HashMap<>();
-        for (String entry : tensorMapContent.split("item \\{")) {
-            if (entry.isEmpty()) {
-                continue;
-            }
-
-            Integer id = null;
-            String name = null;
-            for (String line : entry.split("\n")) {
-                String trimmedLine = line.trim();
-                if (trimmedLine.startsWith("id: ")) {
-                    id = Integer.parseInt(trimmedLine.split(": ")[1]);
-                } else if (trimmedLine.startsWith("name: '")) {
-                    name = trimmedLine.split(": '")[1];
-                    if (!name.endsWith("'")) {
-                        throw new IllegalStateException("Must not happen, line: " + line);
-                    }
-                    name = name.substring(0, name.length() - 1);
-                }
-            }
-            if (id == null || name == null) {
-                throw new IllegalStateException("Failed to parse file");
+    private TFModel acquireModel() {
+        while (true) {
+            TFModel model = activeModel.get();
+            // fails only if the model has been swapped and closed meanwhile, the next one is active by then
+            if (model.retain()) {
+                return model;
             }
+        }
+    }
 
-            tensorMap.put(id, name);
+    private void awaitInitialized() {
+        if (state == TFServiceState.READY) {
+            return;
+        }
+        try {
+            initialized.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("TFService is not available", e.getCause());
         }
-        return tensorMap;
     }
 
-    private Map<Integer, ObjectClass> loadClassesMap() throws Exception {
-        String classesMapContent = Files.readString(Path.of(CLASSES_MAP));
-        Map<?, ?> classesMap = serializerUtils.toObject(classesMapContent, Map.class);
-        List<Map<String, String>> classes = (List<Map<String, String>>) classesMap.get("classes");
-        return classes
+    private List<List<Detection>> detectBatchInternal(TFModel model, List<BufferedImage> inputImages) {
+        if (inputImages.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<BufferedImage> preprocessedImages = inputImages
                 .stream()
-                .collect(Collectors.toMap(e -> Integer.parseInt(e.get("id")), e -> new ObjectClass(Integer.parseInt(e.get("id")), e.get("cardId"), e.get("name"))));
+                .map(imagePreprocessor::preprocess)
+                .collect(Collectors.toList());
+
+        // images are padded (bottom and right) to the largest width and height of the batch
+        int batchWidth = preprocessedImages.stream().mapToInt(BufferedImage::getWidth).max().orElseThrow();
+        int batchHeight = preprocessedImages.stream().mapToInt(BufferedImage::getHeight).max().orElseThrow();
+        RawDetections rawDetections = model.getSession().run(preprocessedImages, batchWidth, batchHeight);
+        int maxObjects = rawDetections.getMaxObjects();
+        float[] scores = rawDetections.getScores();
+        float[] classes = rawDetections.getClasses();
+        float[] boxes = rawDetections.getBoxes();
+
+        List<List<Detection>> result = new ArrayList<>();
+        for (int n = 0; n < rawDetections.getBatchSize(); ++n) {
+            BufferedImage preprocessedImage = preprocessedImages.get(n);
+            // boxes are normalized to the padded image, scale them back to the original one
+            float scaleY = (float) batchHeight / preprocessedImage.getHeight();
+            float scaleX = (float) batchWidth / preprocessedImage.getWidth();
+            result.add(detectionPostProcessor.process(scores, classes, boxes, n * maxObjects, maxObjects, scaleY, scaleX, model.getLabels()));
+        }
+        return result;
+    }
+
+    private static void printCards(Map<Integer, ObjectClass> objectClasses) {
+        StringBuilder sb = new StringBuilder("Cards");
+        sb.append(System.lineSeparator());
+        sb.append(String.format("\tCards (%d)", objectClasses.size()));
+        sb.append(System.lineSeparator());
+        sb.append(String.format("\t%-5s %-5s %-8s %s", "#", "ID", "CardID", "Name"));
+        sb.append(System.lineSeparator());
+        for (Map.Entry<Integer, ObjectClass> objectClassEntry : objectClasses.entrySet()) {
+            Integer tfId = objectClassEntry.getKey();
+            ObjectClass objectClass = objectClassEntry.getValue();
+            int id = objectClass.getId();
+            String cardId = objectClass.getCardId();
+            String name = objectClass.getName();
+            sb.append(String.format("\t%-5s %-5s %-8s %s", tfId, id, cardId, name));
+            sb.append(System.lineSeparator());
+        }
+        LOG.info(sb.toString());
     }
 
-    private void drawCard(BufferedImage bufferedImage, float[] box, int clazz, float score) {
+    private void drawCard(Map<Integer, ObjectClass> cardsMap, BufferedImage bufferedImage, float[] box, int clazz, float score) {
         ObjectClass objectClass = cardsMap.get(clazz);
         String cardName = objectClass.getName();
         String label = String.format("%s %.4f", cardName, score);
@@ -0,0 +1,7 @@
+package com.github.tornaia.jimglabel.tf;
+
+public enum TFServiceState {
+    LOADING,
+    READY,
+    FAILED
+}
@@ -0,0 +1,17 @@
+package com.github.tornaia.jimglabel.tf;
+
+import com.github.tornaia.jimglabel.common.event.AbstractEvent;
+
+public class TFServiceStateChangedEvent extends AbstractEvent {
+
+    private final TFServiceState state;
+
+    public TFServiceStateChangedEvent(TFServiceState state, long timestamp) {
+        super(timestamp);
+        this.state = state;
+    }
+
+    public TFServiceState getState() {
+        return state;
+    }
+}
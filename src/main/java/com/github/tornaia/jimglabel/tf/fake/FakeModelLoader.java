@@ -0,0 +1,69 @@
+package com.github.tornaia.jimglabel.tf.fake;
+
+import com.github.tornaia.jimglabel.gui.domain.ObjectClass;
+import com.github.tornaia.jimglabel.tf.Detection;
+import com.github.tornaia.jimglabel.tf.ModelLoader;
+import com.github.tornaia.jimglabel.tf.ModelSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Backend without model files: synthetic classes and {@link FakeModelSession}s. For load testing the labelling
+ * pipeline, the caches and the gui on machines without the exported model (tf.backend=fake).
+ */
+@Component
+@ConditionalOnProperty(name = "tf.backend", havingValue = "fake")
+public class FakeModelLoader implements ModelLoader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FakeModelLoader.class);
+
+    private final int classes;
+    private final int maxObjects;
+    private final long latencyMs;
+
+    @Autowired
+    public FakeModelLoader(@Value("${tf.fake.classes:10}") int classes, @Value("${tf.fake.max-objects:10}") int maxObjects, @Value("${tf.fake.latency-ms:200}") long latencyMs) {
+        this.classes = classes;
+        this.maxObjects = maxObjects;
+        this.latencyMs = latencyMs;
+        LOG.info("Fake backend, classes: {}, max objects: {}, latency: {} ms per image", classes, maxObjects, latencyMs);
+    }
+
+    @Override
+    public Map<Integer, ObjectClass> loadLabels() {
+        Map<Integer, ObjectClass> labels = new HashMap<>();
+        for (int i = 1; i <= classes; ++i) {
+            labels.put(i, new ObjectClass(i, String.format("%04d", i), "Fake card " + i));
+        }
+        return labels;
+    }
+
+    @Override
+    public ModelSession loadSession() {
+        return new FakeModelSession(classes, maxObjects, latencyMs);
+    }
+
+    @Override
+    public String getFingerprint() {
+        // the latency does not change the detections
+        return String.format("fake, classes=%s, maxObjects=%s", classes, maxObjects);
+    }
+
+    @Override
+    public void verify(List<Detection> testImageDetections) {
+    }
+
+    @Override
+    public List<Path> getWatchedDirectories() {
+        return List.of();
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.tornaia.jimglabel.tf.fake;
+
+import com.github.tornaia.jimglabel.tf.ModelSession;
+import com.github.tornaia.jimglabel.tf.RawDetections;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Returns synthetic detections after a fixed latency per image. The detections are derived from the size and a grid
+ * of pixels of the image, so the same image always gets the same detections.
+ */
+public class FakeModelSession implements ModelSession {
+
+    private static final int SAMPLE_GRID = 8;
+
+    private final int classes;
+    private final int maxObjects;
+    private final long latencyMs;
+
+    public FakeModelSession(int classes, int maxObjects, long latencyMs) {
+        this.classes = classes;
+        this.maxObjects = maxObjects;
+        this.latencyMs = latencyMs;
+    }
+
+    @Override
+    public RawDetections run(List<BufferedImage> images, int width, int height) {
+        try {
+            Thread.sleep(latencyMs * images.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        }
+
+        int batchSize = images.size();
+        float[] scores = new float[batchSize * maxObjects];
+        float[] classIds = new float[batchSize * maxObjects];
+        float[] boxes = new float[batchSize * maxObjects * 4];
+        for (int n = 0; n < batchSize; ++n) {
+            BufferedImage image = images.get(n);
+            // boxes are normalized to the padded image
+            float scaleY = (float) image.getHeight() / height;
+            float scaleX = (float) image.getWidth() / width;
+            Random random = new Random(seed(image));
+            for (int i = 0; i < maxObjects; ++i) {
+                int slot = n * maxObjects + i;
+                float boxHeight = 0.1F + random.nextFloat() * 0.2F;
+                float boxWidth = 0.1F + random.nextFloat() * 0.2F;
+                float top = random.nextFloat() * (1F - boxHeight);
+                float left = random.nextFloat() * (1F - boxWidth);
+                // sorted by score like the real model, only the first few are above the usual thresholds
+                scores[slot] = Math.max(0.01F, 0.99F - i * 0.2F - random.nextFloat() * 0.05F);
+                classIds[slot] = 1 + random.nextInt(classes);
+                boxes[slot * 4] = top * scaleY;
+                boxes[slot * 4 + 1] = left * scaleX;
+                boxes[slot * 4 + 2] = (top + boxHeight) * scaleY;
+                boxes[slot * 4 + 3] = (left + boxWidth) * scaleX;
+            }
+        }
+        return new RawDetections(batchSize, maxObjects, scores, classIds, boxes);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static long seed(BufferedImage image) {
+        long seed = 31L * image.getWidth() + image.getHeight();
+        for (int y = 0; y < SAMPLE_GRID; ++y) {
+            for (int x = 0; x < SAMPLE_GRID; ++x) {
+                seed = 31L * seed + image.getRGB(x * image.getWidth() / SAMPLE_GRID, y * image.getHeight() / SAMPLE_GRID);
+            }
+        }
+        return seed;
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.tornaia.jimglabel.gui.component;
+
+import com.github.tornaia.jimglabel.gui.domain.DetectedObject;
+import com.github.tornaia.jimglabel.gui.util.DetectedObjectUtil;
+import com.github.tornaia.jimglabel.gui.util.ObjectControl;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DetectedObjectIndexTest {
+
+    @Test
+    public void sameResultsAsALinearScan() {
+        Random random = new Random(42L);
+        List<Dimension> viewSizes = List.of(new Dimension(1, 1), new Dimension(200, 150), new Dimension(1920, 1080), new Dimension(12000, 800));
+        for (Dimension viewSize : viewSizes) {
+            for (int round = 0; round < 20; round++) {
+                List<DetectedObject> objects = randomObjects(random, random.nextInt(200));
+                DetectedObjectIndex index = new DetectedObjectIndex(objects, viewSize);
+                for (int p = 0; p < 2000; p++) {
+                    Point point = randomPoint(random, objects, viewSize);
+
+                    assertSame(getObject(objects, viewSize, point), index.getObject(point), () -> "getObject " + viewSize + " " + point);
+                    assertSame(getObjectAtControl(objects, viewSize, point), index.getObjectAtControl(point), () -> "getObjectAtControl " + viewSize + " " + point);
+                    DetectedObject object = objects.isEmpty() ? null : objects.get(random.nextInt(objects.size()));
+                    assertEquals(getObjectControl(object, viewSize, point), index.getObjectControl(object, point), () -> "getObjectControl " + viewSize + " " + point);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void objectNotIndexedHasNoControl() {
+        DetectedObject indexed = new DetectedObject(1, 0.1F, 0.5F, 0.5F, 0.1F);
+        DetectedObject notIndexed = new DetectedObject(1, 0.1F, 0.5F, 0.5F, 0.1F);
+        DetectedObjectIndex index = new DetectedObjectIndex(List.of(indexed), new Dimension(100, 100));
+
+        assertEquals(ObjectControl.TOP_LEFT, index.getObjectControl(indexed, new Point(10, 10)));
+        assertNull(index.getObjectControl(notIndexed, new Point(10, 10)));
+        assertNull(index.getObjectControl(null, new Point(10, 10)));
+    }
+
+    @Test
+    public void upToDateForTheSameObjectsAndViewSize() {
+        List<DetectedObject> objects = new ArrayList<>(List.of(new DetectedObject(1, 0.1F, 0.5F, 0.5F, 0.1F)));
+        DetectedObjectIndex index = new DetectedObjectIndex(objects, new Dimension(100, 100));
+
+        assertTrue(index.isUpToDate(objects, new Dimension(100, 100)));
+        assertFalse(index.isUpToDate(objects, new Dimension(100, 101)));
+        objects.add(new DetectedObject(2, 0.6F, 0.9F, 0.9F, 0.6F));
+        assertFalse(index.isUpToDate(objects, new Dimension(100, 100)));
+    }
+
+    private static List<DetectedObject> randomObjects(Random random, int count) {
+        List<DetectedObject> objects = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // mostly small objects, some of them cover half of the view
+            float width = random.nextInt(10) == 0 ? random.nextFloat() * 0.5F : random.nextFloat() * 0.05F;
+            float height = random.nextInt(10) == 0 ? random.nextFloat() * 0.5F : random.nextFloat() * 0.05F;
+            float left = random.nextFloat() * (1F - width);
+            float top = random.nextFloat() * (1F - height);
+            objects.add(new DetectedObject(i, top, left + width, top + height, left));
+        }
+        return objects;
+    }
+
+    /**
+     * Half of the points are near a corner of an object where the controls are, a dragged mouse can leave the view.
+     */
+    private static Point randomPoint(Random random, List<DetectedObject> objects, Dimension viewSize) {
+        if (objects.isEmpty() || random.nextBoolean()) {
+            return new Point(random.nextInt(viewSize.width + 40) - 20, random.nextInt(viewSize.height + 40) - 20);
+        }
+        DetectedObject object = objects.get(random.nextInt(objects.size()));
+        float x = viewSize.width * (random.nextBoolean() ? object.getLeft() : object.getRight());
+        float y = viewSize.height * (random.nextBoolean() ? object.getTop() : object.getBottom());
+        return new Point(Math.round(x) + random.nextInt(31) - 15, Math.round(y) + random.nextInt(31) - 15);
+    }
+
+    private static DetectedObject getObject(List<DetectedObject> objects, Dimension viewSize, Point point) {
+        for (DetectedObject object : objects) {
+            if (point.x > viewSize.width * object.getLeft() && point.x < viewSize.width * object.getRight() && point.y > viewSize.height * object.getTop() && point.y < viewSize.height * object.getBottom()) {
+                return object;
+            }
+        }
+        return null;
+    }
+
+    private static DetectedObject getObjectAtControl(List<DetectedObject> objects, Dimension viewSize, Point point) {
+        for (int i = objects.size() - 1; i >= 0; i--) {
+            if (getObjectControl(objects.get(i), viewSize, point) != null) {
+                return objects.get(i);
+            }
+        }
+        return null;
+    }
+
+    private static ObjectControl getObjectControl(DetectedObject object, Dimension viewSize, Point point) {
+        if (object == null) {
+            return null;
+        }
+        return DetectedObjectUtil.getObjectControl(viewSize.width * object.getLeft(), viewSize.height * object.getTop(), viewSize.width * object.getRight(), viewSize.height * object.getBottom(), point.x, point.y);
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.tornaia.jimglabel.gui.service;
+
+import com.github.tornaia.jimglabel.common.setting.SessionSettingsProvider;
+import com.github.tornaia.jimglabel.gui.util.FileUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AnnotationWriterTest {
+
+    private static final long NEVER_MS = 3_600_000L;
+
+    @TempDir
+    Path directory;
+
+    private ImagePrefetcher imagePrefetcher;
+    private SessionSettingsProvider sessionSettingsProvider;
+    private Path settingsDirectory;
+    private Path imageA;
+    private Path imageB;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        settingsDirectory = directory.resolve("settings");
+        imagePrefetcher = mock(ImagePrefetcher.class);
+        sessionSettingsProvider = mock(SessionSettingsProvider.class);
+        when(sessionSettingsProvider.getSettingsDirectory()).thenReturn(settingsDirectory);
+        Path sourceDirectory = Files.createDirectories(directory.resolve("source"));
+        imageA = sourceDirectory.resolve("a.jpg");
+        imageB = sourceDirectory.resolve("b.jpg");
+    }
+
+    @Test
+    public void editsAreWrittenAfterFlush() throws Exception {
+        AnnotationWriter annotationWriter = new AnnotationWriter(imagePrefetcher, sessionSettingsProvider, NEVER_MS);
+        annotationWriter.write(imageA, "first");
+        annotationWriter.write(imageA, "second");
+
+        assertEquals("second", annotationWriter.getPendingContent(imageA));
+        annotationWriter.shutdown();
+
+        assertEquals("second", read(imageA));
+        assertNull(annotationWriter.getPendingContent(imageA));
+        assertEquals(0L, journalSize());
+        verify(imagePrefetcher).updateAnnotation(imageA, "second");
+    }
+
+    @Test
+    public void journalIsReplayedAfterACrash() throws Exception {
+        Files.writeString(FileUtil.getAnnotationFile(imageB), "on disk");
+        AnnotationWriter crashed = new AnnotationWriter(imagePrefetcher, sessionSettingsProvider, NEVER_MS);
+        crashed.write(imageA, "first");
+        crashed.write(imageB, "edited");
+        crashed.write(imageA, "second");
+        crashed.delete(imageB);
+
+        assertFalse(Files.exists(FileUtil.getAnnotationFile(imageA)));
+        new AnnotationWriter(imagePrefetcher, sessionSettingsProvider, NEVER_MS);
+
+        assertEquals("second", read(imageA));
+        assertFalse(Files.exists(FileUtil.getAnnotationFile(imageB)));
+        assertEquals(0L, journalSize());
+    }
+
+    @Test
+    public void recordTornByACrashEndsTheJournal() throws Exception {
+        AnnotationWriter crashed = new AnnotationWriter(imagePrefetcher, sessionSettingsProvider, NEVER_MS);
+        crashed.write(imageA, "complete");
+        crashed.write(imageB, "torn");
+        long journalSize = journalSize();
+        try (SeekableByteChannel journal = Files.newByteChannel(settingsDirectory.resolve("annotations.journal"), StandardOpenOption.WRITE)) {
+            journal.truncate(journalSize - 2);
+        }
+
+        new AnnotationWriter(imagePrefetcher, sessionSettingsProvider, NEVER_MS);
+
+        assertEquals("complete", read(imageA));
+        assertFalse(Files.exists(FileUtil.getAnnotationFile(imageB)));
+    }
+
+    private static String read(Path imageFile) throws IOException {
+        return Files.readString(FileUtil.getAnnotationFile(imageFile));
+    }
+
+    private long journalSize() throws IOException {
+        Path journalFile = settingsDirectory.resolve("annotations.journal");
+        return Files.exists(journalFile) ? Files.size(journalFile) : 0L;
+    }
+}
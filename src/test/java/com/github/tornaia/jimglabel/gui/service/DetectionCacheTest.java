@@ -0,0 +1,117 @@
+package com.github.tornaia.jimglabel.gui.service;
+
+import com.github.tornaia.jimglabel.tf.Detection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DetectionCacheTest {
+
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    private static final String MODEL = "2c26b46b68ffc68ff99b453c1d30413413422d706483bfa0f98a5e886266e7ae";
+    private static final String OTHER_MODEL = "fcde2b2edba56bf408601fb721fe9b5c338d10ee429ea04fae5511b68fbf8fb9";
+
+    @TempDir
+    Path sourceDirectory;
+
+    private ImageEditorService imageEditorService;
+
+    @BeforeEach
+    public void setUp() {
+        imageEditorService = mock(ImageEditorService.class);
+        when(imageEditorService.getSourceDirectory()).thenReturn(sourceDirectory.toString());
+    }
+
+    @Test
+    public void detectionsAreReadBackFromTheFile() {
+        List<Detection> detections = List.of(
+                new Detection(0.1F, 0.2F, 0.3F, 0.4F, 7, "card-7", "seven", 0.9F),
+                new Detection(0.5F, 0.6F, 0.7F, 0.8F, 3, "card-3", "three", 0.6F),
+                new Detection(0.0F, 0.0F, 1.0F, 1.0F, 7, "card-7", "seven", 0.55F));
+        new DetectionCache(imageEditorService, 16).put(HASH, MODEL, detections);
+
+        DetectionCache detectionCache = new DetectionCache(imageEditorService, 16);
+
+        assertTrue(detectionCache.contains(HASH, MODEL));
+        assertEquals(detections.toString(), detectionCache.get(HASH, MODEL).toString());
+    }
+
+    @Test
+    public void noDetectionsAreReadBackFromTheFile() {
+        new DetectionCache(imageEditorService, 16).put(HASH, MODEL, List.of());
+
+        assertEquals(List.of(), new DetectionCache(imageEditorService, 16).get(HASH, MODEL));
+    }
+
+    @Test
+    public void detectionsOfAnotherModelAreNotReturned() {
+        DetectionCache detectionCache = new DetectionCache(imageEditorService, 16);
+        detectionCache.put(HASH, MODEL, List.of(new Detection(0.1F, 0.2F, 0.3F, 0.4F, 7, "card-7", "seven", 0.9F)));
+
+        assertFalse(detectionCache.contains(HASH, OTHER_MODEL));
+        assertNull(detectionCache.get(HASH, OTHER_MODEL));
+        assertNull(new DetectionCache(imageEditorService, 16).get(HASH, OTHER_MODEL));
+    }
+
+    @Test
+    public void concurrentPutsOfTheSameEntryDoNotMix() throws Exception {
+        // a different number of detections per put, a mixed file would not match any of them
+        List<String> expected = new ArrayList<>();
+        List<List<Detection>> puts = new ArrayList<>();
+        for (int put = 0; put < 32; put++) {
+            List<Detection> detections = new ArrayList<>();
+            for (int i = 0; i < 100 + put * 10; i++) {
+                detections.add(new Detection(0.1F, 0.2F, 0.3F, 0.4F, i, "card-" + put, "name-" + i, 0.9F));
+            }
+            puts.add(detections);
+            expected.add(detections.toString());
+        }
+        DetectionCache detectionCache = new DetectionCache(imageEditorService, 16);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<Detection> detections : puts) {
+                futures.add(executorService.submit(() -> detectionCache.put(HASH, MODEL, detections)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        List<Detection> stored = new DetectionCache(imageEditorService, 16).get(HASH, MODEL);
+        assertTrue(stored != null && expected.contains(stored.toString()));
+        try (Stream<Path> files = Files.walk(sourceDirectory)) {
+            assertEquals(List.of(), files.filter(f -> f.toString().endsWith(".tmp")).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void corruptFileIsAMiss() throws Exception {
+        new DetectionCache(imageEditorService, 16).put(HASH, MODEL, List.of(new Detection(0.1F, 0.2F, 0.3F, 0.4F, 7, "card-7", "seven", 0.9F)));
+        try (Stream<Path> files = Files.walk(sourceDirectory)) {
+            Path file = files.filter(f -> f.toString().endsWith(".bin")).findFirst().orElseThrow();
+            Files.write(file, new byte[]{1, 2, 3});
+        }
+
+        assertNull(new DetectionCache(imageEditorService, 16).get(HASH, MODEL));
+    }
+}
@@ -0,0 +1,290 @@
+package com.github.tornaia.jimglabel.gui.util;
+
+import com.github.tornaia.jimglabel.gui.domain.DetectedObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classifying the control under the mouse for an object, mostly near its controls: the nine separate checks of the
+ * scaled image as they were before, each reading the image size and computing the geometry of the object again,
+ * versus the single pass of {@link DetectedObjectUtil#getObjectControl(float, float, float, float, float, float)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DetectedObjectUtilBenchmark {
+
+    private static final int POINTS = 1024;
+    private static final int CONTROL_SIZE_RADIUS2 = DetectedObjectUtil.CONTROL_SIZE_RADIUS2;
+
+    private final Dimension viewSize = new Dimension(1920, 1080);
+    private Image scaledImage;
+    private DetectedObject[] objects;
+    private Point[] points;
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(DetectedObjectUtilBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        // the old checks took the scaled instance of the image the panel painted, loaded before its size is known
+        BufferedImage image = new BufferedImage(viewSize.width * 2, viewSize.height * 2, BufferedImage.TYPE_INT_RGB);
+        scaledImage = image.getScaledInstance(viewSize.width, viewSize.height, Image.SCALE_SMOOTH);
+        if (new ImageIcon(scaledImage).getIconWidth() != viewSize.width) {
+            throw new IllegalStateException("Must not happen, scaled image not loaded");
+        }
+
+        Random random = new Random(42);
+        objects = new DetectedObject[POINTS];
+        points = new Point[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            float left = random.nextFloat() * 0.8F;
+            float top = random.nextFloat() * 0.8F;
+            float right = left + 0.01F + random.nextFloat() * 0.19F;
+            float bottom = top + 0.01F + random.nextFloat() * 0.19F;
+            objects[i] = new DetectedObject(i, top, right, bottom, left);
+            float x = viewSize.width * (random.nextBoolean() ? left : right);
+            float y = viewSize.height * (random.nextBoolean() ? top : bottom);
+            points[i] = new Point((int) x + random.nextInt(31) - 15, (int) y + random.nextInt(31) - 15);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int selectedObjectControl() {
+        int hits = 0;
+        for (int i = 0; i < POINTS; i++) {
+            if (getSelectedObjectControl(scaledImage, objects[i], points[i]) != null) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int objectControl() {
+        int hits = 0;
+        for (int i = 0; i < POINTS; i++) {
+            DetectedObject object = objects[i];
+            Point point = points[i];
+            float x0 = viewSize.width * object.getLeft();
+            float y0 = viewSize.height * object.getTop();
+            float x1 = viewSize.width * object.getRight();
+            float y1 = viewSize.height * object.getBottom();
+            if (DetectedObjectUtil.getObjectControl(x0, y0, x1, y1, point.x, point.y) != null) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static ObjectControl getSelectedObjectControl(Image scaledImage, DetectedObject object, Point point) {
+        if (object == null) {
+            return null;
+        }
+
+        if (isTopLeftControl(scaledImage, object, point)) {
+            return ObjectControl.TOP_LEFT;
+        }
+
+        if (isTopControl(scaledImage, object, point)) {
+            return ObjectControl.TOP;
+        }
+
+        if (isTopRightControl(scaledImage, object, point)) {
+            return ObjectControl.TOP_RIGHT;
+        }
+
+        if (isLeftControl(scaledImage, object, point)) {
+            return ObjectControl.LEFT;
+        }
+
+        if (isMoveControl(scaledImage, object, point)) {
+            return ObjectControl.MOVE;
+        }
+
+        if (isRightControl(scaledImage, object, point)) {
+            return ObjectControl.RIGHT;
+        }
+
+        if (isBottomLeftControl(scaledImage, object, point)) {
+            return ObjectControl.BOTTOM_LEFT;
+        }
+
+        if (isBottomControl(scaledImage, object, point)) {
+            return ObjectControl.BOTTOM;
+        }
+
+        if (isBottomRightControl(scaledImage, object, point)) {
+            return ObjectControl.BOTTOM_RIGHT;
+        }
+
+        return null;
+    }
+
+    private static boolean isTopLeftControl(Image scaledImage, DetectedObject object, Point point) {
+        double px = point.x;
+        double py = point.y;
+
+        float top = object.getTop();
+        float right = object.getRight();
+        float bottom = object.getBottom();
+        float left = object.getLeft();
+        float x0 = scaledImage.getWidth(null) * left;
+        float y0 = scaledImage.getHeight(null) * top;
+        float x1 = scaledImage.getWidth(null) * right;
+        float y1 = scaledImage.getHeight(null) * bottom;
+
+        return Math.hypot(px - x0, py - y0) < CONTROL_SIZE_RADIUS2;
+    }
+
+    private static boolean isTopControl(Image scaledImage, DetectedObject object, Point point) {
+        double px = point.x;
+        double py = point.y;
+
+        float top = object.getTop();
+        float right = object.getRight();
+        float bottom = object.getBottom();
+        float left = object.getLeft();
+        float x0 = scaledImage.getWidth(null) * left;
+        float y0 = scaledImage.getHeight(null) * top;
+        float x1 = scaledImage.getWidth(null) * right;
+        float y1 = scaledImage.getHeight(null) * bottom;
+
+        return Math.hypot(px - ((x0 + x1) / 2), py - y0) < CONTROL_SIZE_RADIUS2;
+    }
+
+    private static boolean isTopRightControl(Image scaledImage, DetectedObject object, Point point) {
+        double px = point.x;
+        double py = point.y;
+
+        float top = object.getTop();
+        float right = object.getRight();
+        float bottom = object.getBottom();
+        float left = object.getLeft();
+        float x0 = scaledImage.getWidth(null) * left;
+        float y0 = scaledImage.getHeight(null) * top;
+        float x1 = scaledImage.getWidth(null) * right;
+        float y1 = scaledImage.getHeight(null) * bottom;
+
+        return Math.hypot(px - x1, py - y0) < CONTROL_SIZE_RADIUS2;
+    }
+
+    private static boolean isLeftControl(Image scaledImage, DetectedObject object, Point point) {
+        double px = point.x;
+        double py = point.y;
+
+        float top = object.getTop();
+        float right = object.getRight();
+        float bottom = object.getBottom();
+        float left = object.getLeft();
+        float x0 = scaledImage.getWidth(null) * left;
+        float y0 = scaledImage.getHeight(null) * top;
+        float x1 = scaledImage.getWidth(null) * right;
+        float y1 = scaledImage.getHeight(null) * bottom;
+
+        return Math.hypot(px - x0, py - ((y0 + y1) / 2)) < CONTROL_SIZE_RADIUS2;
+    }
+
+    private static boolean isMoveControl(Image scaledImage, DetectedObject object, Point point) {
+        double px = point.x;
+        double py = point.y;
+
+        float top = object.getTop();
+        float right = object.getRight();
+        float bottom = object.getBottom();
+        float left = object.getLeft();
+        float x0 = scaledImage.getWidth(null) * left;
+        float y0 = scaledImage.getHeight(null) * top;
+        float x1 = scaledImage.getWidth(null) * right;
+        float y1 = scaledImage.getHeight(null) * bottom;
+
+        return Math.hypot(px - ((x0 + x1) / 2), py - ((y0 + y1) / 2)) < CONTROL_SIZE_RADIUS2;
+    }
+
+    private static boolean isRightControl(Image scaledImage, DetectedObject object, Point point) {
+        double px = point.x;
+        double py = point.y;
+
+        float top = object.getTop();
+        float right = object.getRight();
+        float bottom = object.getBottom();
+        float left = object.getLeft();
+        float x0 = scaledImage.getWidth(null) * left;
+        float y0 = scaledImage.getHeight(null) * top;
+        float x1 = scaledImage.getWidth(null) * right;
+        float y1 = scaledImage.getHeight(null) * bottom;
+
+        return Math.hypot(px - x1, py - ((y0 + y1) / 2)) < CONTROL_SIZE_RADIUS2;
+    }
+
+    private static boolean isBottomLeftControl(Image scaledImage, DetectedObject object, Point point) {
+        double px = point.x;
+        double py = point.y;
+
+        float top = object.getTop();
+        float right = object.getRight();
+        float bottom = object.getBottom();
+        float left = object.getLeft();
+        float x0 = scaledImage.getWidth(null) * left;
+        float y0 = scaledImage.getHeight(null) * top;
+        float x1 = scaledImage.getWidth(null) * right;
+        float y1 = scaledImage.getHeight(null) * bottom;
+
+        return Math.hypot(px - x0, py - y1) < CONTROL_SIZE_RADIUS2;
+    }
+
+    private static boolean isBottomControl(Image scaledImage, DetectedObject object, Point point) {
+        double px = point.x;
+        double py = point.y;
+
+        float top = object.getTop();
+        float right = object.getRight();
+        float bottom = object.getBottom();
+        float left = object.getLeft();
+        float x0 = scaledImage.getWidth(null) * left;
+        float y0 = scaledImage.getHeight(null) * top;
+        float x1 = scaledImage.getWidth(null) * right;
+        float y1 = scaledImage.getHeight(null) * bottom;
+
+        return Math.hypot(px - ((x0 + x1) / 2), py - y1) < CONTROL_SIZE_RADIUS2;
+    }
+
+    private static boolean isBottomRightControl(Image scaledImage, DetectedObject object, Point point) {
+        double px = point.x;
+        double py = point.y;
+
+        float top = object.getTop();
+        float right = object.getRight();
+        float bottom = object.getBottom();
+        float left = object.getLeft();
+        float x0 = scaledImage.getWidth(null) * left;
+        float y0 = scaledImage.getHeight(null) * top;
+        float x1 = scaledImage.getWidth(null) * right;
+        float y1 = scaledImage.getHeight(null) * bottom;
+
+        return Math.hypot(px - x1, py - y1) < CONTROL_SIZE_RADIUS2;
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.tornaia.jimglabel.tf;
+
+import com.github.tornaia.jimglabel.gui.domain.ObjectClass;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DetectionPostProcessorDefaultImplTest {
+
+    private static final ObjectClass[] LABELS = {new ObjectClass(10, "c0", "zero"), new ObjectClass(11, "c1", "one")};
+
+    private final DetectionPostProcessor detectionPostProcessor = new DetectionPostProcessorDefaultImpl(0.5F, 0.02F, 0.5F, 2);
+
+    @Test
+    public void overlappingBoxesOfTheSameClassAreSuppressed() {
+        float[] scores = {0.9F, 0.8F};
+        float[] classes = {0F, 0F};
+        float[] boxes = {0.1F, 0.1F, 0.5F, 0.5F, 0.12F, 0.12F, 0.52F, 0.52F};
+
+        List<Detection> result = detectionPostProcessor.process(scores, classes, boxes, 0, 2, 1F, 1F, LABELS);
+
+        assertEquals(1, result.size());
+        assertEquals(0.9F, result.get(0).getScore());
+    }
+
+    @Test
+    public void overlappingBoxesOfDifferentClassesAreKept() {
+        float[] scores = {0.9F, 0.8F};
+        float[] classes = {0F, 1F};
+        float[] boxes = {0.1F, 0.1F, 0.5F, 0.5F, 0.12F, 0.12F, 0.52F, 0.52F};
+
+        List<Detection> result = detectionPostProcessor.process(scores, classes, boxes, 0, 2, 1F, 1F, LABELS);
+
+        assertEquals(2, result.size());
+        assertEquals(10, result.get(0).getId());
+        assertEquals(11, result.get(1).getId());
+    }
+
+    @Test
+    public void onlyTheBestMaxDetectionsAreKept() {
+        float[] scores = {0.6F, 0.9F, 0.7F};
+        float[] classes = {0F, 0F, 0F};
+        float[] boxes = {0.0F, 0.0F, 0.1F, 0.1F, 0.3F, 0.3F, 0.4F, 0.4F, 0.6F, 0.6F, 0.7F, 0.7F};
+
+        List<Detection> result = detectionPostProcessor.process(scores, classes, boxes, 0, 3, 1F, 1F, LABELS);
+
+        assertEquals(2, result.size());
+        assertEquals(0.9F, result.get(0).getScore());
+        assertEquals(0.7F, result.get(1).getScore());
+    }
+
+    @Test
+    public void onlyTheSlotsOfTheImageAreProcessed() {
+        float[] scores = {0.9F, 0.6F, 0.95F};
+        float[] classes = {0F, 1F, 0F};
+        float[] boxes = {0.0F, 0.0F, 0.1F, 0.1F, 0.3F, 0.3F, 0.4F, 0.4F, 0.6F, 0.6F, 0.7F, 0.7F};
+
+        List<Detection> result = detectionPostProcessor.process(scores, classes, boxes, 1, 1, 1F, 1F, LABELS);
+
+        assertEquals(1, result.size());
+        assertEquals(0.6F, result.get(0).getScore());
+        assertEquals(0.3F, result.get(0).getTop());
+    }
+
+    @Test
+    public void boxesAreScaledBackToTheImage() {
+        float[] scores = {0.9F};
+        float[] classes = {1F};
+        float[] boxes = {0.1F, 0.2F, 0.4F, 0.8F};
+
+        Detection detection = detectionPostProcessor.process(scores, classes, boxes, 0, 1, 2F, 1.5F, LABELS).get(0);
+
+        assertEquals(0.2F, detection.getTop(), 1e-6F);
+        assertEquals(0.3F, detection.getLeft(), 1e-6F);
+        assertEquals(0.8F, detection.getBottom(), 1e-6F);
+        assertEquals(1F, detection.getRight());
+    }
+
+    @Test
+    public void bestSlotIsKeptAboveTheFallbackMinScore() {
+        float[] scores = {0.1F, 0.3F, 0.2F};
+        float[] classes = {0F, 1F, 0F};
+        float[] boxes = new float[12];
+
+        List<Detection> result = detectionPostProcessor.process(scores, classes, boxes, 0, 3, 1F, 1F, LABELS);
+
+        assertEquals(1, result.size());
+        assertEquals(0.3F, result.get(0).getScore());
+        assertEquals(11, result.get(0).getId());
+    }
+
+    @Test
+    public void nothingIsKeptBelowTheFallbackMinScore() {
+        float[] scores = {0.01F, 0.015F};
+        float[] classes = {0F, 0F};
+        float[] boxes = new float[8];
+
+        List<Detection> result = detectionPostProcessor.process(scores, classes, boxes, 0, 2, 1F, 1F, LABELS);
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void mergeSuppressesOverlappingDetectionsOfTheSameClass() {
+        Detection best = new Detection(0.1F, 0.1F, 0.5F, 0.5F, 10, "c0", "zero", 0.9F);
+        Detection sameClass = new Detection(0.12F, 0.12F, 0.52F, 0.52F, 10, "c0", "zero", 0.8F);
+        Detection otherClass = new Detection(0.12F, 0.12F, 0.52F, 0.52F, 11, "c1", "one", 0.7F);
+
+        List<Detection> result = detectionPostProcessor.merge(List.of(sameClass, otherClass, best));
+
+        assertEquals(List.of(best, otherClass), result);
+    }
+
+    @Test
+    public void mergeKeepsTheBestAboveTheFallbackMinScore() {
+        Detection weak = new Detection(0.1F, 0.1F, 0.5F, 0.5F, 10, "c0", "zero", 0.1F);
+        Detection weaker = new Detection(0.6F, 0.6F, 0.9F, 0.9F, 11, "c1", "one", 0.05F);
+
+        List<Detection> result = detectionPostProcessor.merge(List.of(weaker, weak));
+
+        assertEquals(List.of(weak), result);
+    }
+}
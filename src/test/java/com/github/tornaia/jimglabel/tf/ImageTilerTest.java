@@ -0,0 +1,86 @@
+package com.github.tornaia.jimglabel.tf;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ImageTilerTest {
+
+    @Test
+    public void landscapePhoto() {
+        List<Rectangle> tiles = ImageTiler.createTiles(4032, 2268, 1024, 0.25F);
+
+        assertEquals(15, tiles.size());
+        assertEquals(new Rectangle(0, 0, 1024, 1024), tiles.get(0));
+        assertEquals(new Rectangle(3008, 1244, 1024, 1024), tiles.get(14));
+        assertCovered(tiles, 4032, 2268);
+    }
+
+    @Test
+    public void neighboursOverlapAtLeastTheGivenFraction() {
+        List<Rectangle> tiles = ImageTiler.createTiles(4032, 2268, 1024, 0.25F);
+
+        for (int i = 1; i < 5; i++) {
+            Rectangle intersection = tiles.get(i - 1).intersection(tiles.get(i));
+            assertTrue(intersection.width >= 256, "tile " + i + " overlap: " + intersection.width);
+        }
+    }
+
+    @Test
+    public void imageSmallerThanTheTileIsOneTile() {
+        List<Rectangle> tiles = ImageTiler.createTiles(640, 480, 1024, 0.25F);
+
+        assertEquals(List.of(new Rectangle(0, 0, 640, 480)), tiles);
+    }
+
+    @Test
+    public void imageOfExactlyTheTileSizeIsOneTile() {
+        List<Rectangle> tiles = ImageTiler.createTiles(1024, 1024, 1024, 0.25F);
+
+        assertEquals(List.of(new Rectangle(0, 0, 1024, 1024)), tiles);
+    }
+
+    @Test
+    public void narrowImageIsTiledAlongOneSide() {
+        List<Rectangle> tiles = ImageTiler.createTiles(3000, 500, 1024, 0.5F);
+
+        assertEquals(5, tiles.size());
+        tiles.forEach(tile -> assertEquals(500, tile.height));
+        assertCovered(tiles, 3000, 500);
+    }
+
+    @Test
+    public void withoutOverlapTheLastTileIsAlignedToTheEdge() {
+        List<Rectangle> tiles = ImageTiler.createTiles(2500, 1024, 1024, 0F);
+
+        assertEquals(List.of(new Rectangle(0, 0, 1024, 1024), new Rectangle(1024, 0, 1024, 1024), new Rectangle(1476, 0, 1024, 1024)), tiles);
+    }
+
+    @Test
+    public void overlapOutOfRange() {
+        assertThrows(IllegalStateException.class, () -> ImageTiler.createTiles(4032, 2268, 1024, 1F));
+        assertThrows(IllegalStateException.class, () -> ImageTiler.createTiles(4032, 2268, 1024, -0.1F));
+    }
+
+    private static void assertCovered(List<Rectangle> tiles, int width, int height) {
+        Rectangle image = new Rectangle(0, 0, width, height);
+        tiles.forEach(tile -> assertTrue(image.contains(tile), "outside of the image: " + tile));
+        boolean[] covered = new boolean[width * height];
+        for (Rectangle tile : tiles) {
+            for (int y = tile.y; y < tile.y + tile.height; y++) {
+                Arrays.fill(covered, y * width + tile.x, y * width + tile.x + tile.width, true);
+            }
+        }
+        int uncovered = 0;
+        while (uncovered < covered.length && covered[uncovered]) {
+            uncovered++;
+        }
+        assertEquals(covered.length, uncovered, "not covered: " + (uncovered % width) + ", " + (uncovered / width));
+    }
+}
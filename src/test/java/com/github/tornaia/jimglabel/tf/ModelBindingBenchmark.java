@@ -0,0 +1,129 @@
+package com.github.tornaia.jimglabel.tf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.tensorflow.Graph;
+import org.tensorflow.Session;
+import org.tensorflow.Tensor;
+import org.tensorflow.ndarray.Shape;
+import org.tensorflow.op.Ops;
+import org.tensorflow.op.core.Placeholder;
+import org.tensorflow.proto.framework.MetaGraphDef;
+import org.tensorflow.proto.framework.SignatureDef;
+import org.tensorflow.proto.framework.TensorInfo;
+import org.tensorflow.types.TFloat32;
+import org.tensorflow.types.TUint8;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call overhead of feeding and fetching the detection signature, measured on a tiny graph so the graph
+ * execution itself is negligible: resolving the node names from the signature on every call (as detect() used to)
+ * versus the {@link ModelBinding} resolved once at model load.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBindingBenchmark {
+
+    private Graph graph;
+    private Session session;
+    private MetaGraphDef metaGraphDef;
+    private ModelBinding modelBinding;
+    private Tensor<TUint8> input;
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ModelBindingBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        graph = new Graph();
+        Ops tf = Ops.create(graph);
+        Placeholder<TUint8> inputTensor = tf.withName("input_tensor").placeholder(TUint8.DTYPE);
+        tf.withName("num_detections").dtypes.cast(inputTensor, TFloat32.DTYPE);
+        tf.withName("detection_scores").dtypes.cast(inputTensor, TFloat32.DTYPE);
+        tf.withName("detection_classes").dtypes.cast(inputTensor, TFloat32.DTYPE);
+        tf.withName("detection_boxes").dtypes.cast(inputTensor, TFloat32.DTYPE);
+        session = new Session(graph);
+
+        metaGraphDef = MetaGraphDef.newBuilder()
+                .putSignatureDef("serving_default", SignatureDef.newBuilder()
+                        .putInputs("input_tensor", TensorInfo.newBuilder().setName("input_tensor:0").build())
+                        .putOutputs("num_detections", TensorInfo.newBuilder().setName("num_detections:0").build())
+                        .putOutputs("detection_scores", TensorInfo.newBuilder().setName("detection_scores:0").build())
+                        .putOutputs("detection_classes", TensorInfo.newBuilder().setName("detection_classes:0").build())
+                        .putOutputs("detection_boxes", TensorInfo.newBuilder().setName("detection_boxes:0").build())
+                        .build())
+                .build();
+        modelBinding = ModelBinding.of(metaGraphDef, graph);
+        input = TUint8.tensorOf(Shape.of(1, 1, 1, 3));
+    }
+
+    @TearDown
+    public void tearDown() {
+        input.close();
+        session.close();
+        graph.close();
+    }
+
+    @Benchmark
+    public int signatureLookupPerCall() {
+        List<Tensor<?>> outputs = session
+                .runner()
+                .feed(getInputNodeName("input_tensor"), input)
+                .fetch(getOutputNodeName("num_detections"))
+                .fetch(getOutputNodeName("detection_scores"))
+                .fetch(getOutputNodeName("detection_classes"))
+                .fetch(getOutputNodeName("detection_boxes"))
+                .run();
+        return close(outputs);
+    }
+
+    @Benchmark
+    public int modelBinding() {
+        List<Tensor<?>> outputs = modelBinding.run(session, input);
+        return close(outputs);
+    }
+
+    private String getInputNodeName(String name) {
+        SignatureDef sig = metaGraphDef.getSignatureDefOrThrow("serving_default");
+        for (Map.Entry<String, TensorInfo> entry : sig.getInputsMap().entrySet()) {
+            if (entry.getKey().equals(name)) {
+                return entry.getValue().getName();
+            }
+        }
+        throw new IllegalStateException("Must not happen, name: " + name);
+    }
+
+    private String getOutputNodeName(String name) {
+        SignatureDef sig = metaGraphDef.getSignatureDefOrThrow("serving_default");
+        for (Map.Entry<String, TensorInfo> entry : sig.getOutputsMap().entrySet()) {
+            if (entry.getKey().equals(name)) {
+                return entry.getValue().getName();
+            }
+        }
+        throw new IllegalStateException("Must not happen, name: " + name);
+    }
+
+    private static int close(List<Tensor<?>> outputs) {
+        outputs.forEach(Tensor::close);
+        return outputs.size();
+    }
+}